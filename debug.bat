@@ -2,4 +2,4 @@ forfiles /s /m "*.java" /c "cmd /c echo @relpath" > sources.txt
 powershell -Command "(gc sources.txt) -replace '\\', '\\\\' | Out-File -encoding ASCII sources.txt"
 javac @sources.txt -d out/ -cp out
 del /s sources.txt
-java -classpath out visualizer.Visualizer %*
\ No newline at end of file
+java -classpath out;data visualizer.Visualizer %*
\ No newline at end of file
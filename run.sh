@@ -1,4 +1,4 @@
 #!/usr/bin/env bash
 echo "Running on $OSTYPE."
 javac `find . | grep \.java$` -d out/ -cp out
-java -classpath out main.Driver "$1" "$2"
\ No newline at end of file
+java -classpath out:data main.Driver "$1" "$2"
\ No newline at end of file
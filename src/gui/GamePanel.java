@@ -401,9 +401,10 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
       this.solutionTimeString = String.format("%.2f", elapsedSolutionTime / 1000000000.0) + "s";
       this.repaint();
     } else if (e.getSource() == solutionTimer) {
-      // Solution was not found
+      // Solution was not found; tell the bot to stop searching
       solutionTimer.stop();
       checkForSolutionTimer.stop();
+      solutionThread.interrupt();
       long elapsedSolutionTime = System.nanoTime() - solutionStartTime;
       this.solutionTimeString = String.format("%.2f", elapsedSolutionTime / 1000000000.0);
       this.statusString = STATUS_SOLUTION_TIMEOUT;
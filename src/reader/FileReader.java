@@ -1,41 +1,23 @@
 package reader;
 
-import java.io.File;
-import java.util.Scanner;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class FileReader {
   public MapData readFile(String keyword) {
-    int rows = 0;
-    int columns = 0;
-    char tiles[][] = new char[100][100];
-    for (int i = 0; i < 100; i++) {
-      for (int j = 0; j < 100; j++) {
-        tiles[i][j] = ' ';
-      }
-    }
+    Path file = Paths.get("maps", keyword + ".txt");
 
-    try {
-      File file = new File("maps/" + keyword + ".txt");
-      Scanner scanner = new Scanner(file);
-      while (scanner.hasNext()) {
-        String nextLine = scanner.nextLine();
-        columns = Math.max(columns, nextLine.length());
-        for (int i = 0; i < nextLine.length(); i++) {
-          tiles[rows][i] = nextLine.charAt(i);
-        }
-        rows++;
+    // A map file is a pack with one level in it
+    try (PackReader reader = new PackReader(file)) {
+      if (reader.hasNext()) {
+        return reader.next();
       }
-      scanner.close();
+
+      System.out.println("No map found in " + file);
     } catch (Exception ex) {
       ex.printStackTrace(System.out);
-      return null;
     }
 
-    MapData result = new MapData();
-    result.tiles = tiles;
-    result.rows = rows;
-    result.columns = columns;
-
-    return result;
+    return null;
   }
 }
@@ -5,6 +5,10 @@ public class MapData {
   public int rows;
   public int columns;
 
+  // Where the map came from: the name of its file, and which level of the file it is, from 1
+  public String name;
+  public int level;
+
   public void print() {
     for (int i = 0; i < rows; i++) {
       for (int j = 0; j < columns; j++) {
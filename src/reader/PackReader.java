@@ -0,0 +1,273 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 20:41:09
+ * @ Modified time: 2026-10-17 20:41:09
+ * @ Description:
+ *
+ * Reads levels out of pack files (.xsb, .sok, or our own .txt), one at a time.
+ * A pack is any number of boards with titles, comments and blank lines around them; a board is a run
+ * of lines made only of board characters, with at least one wall. Anything else ends the board.
+ * Given a directory, every pack under it is read in order of name, skipping hidden files.
+ *
+ * Only one line is held at a time, plus the board being read, so a pack of any size can be read.
+ */
+
+package reader;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class PackReader implements Iterator<MapData>, Closeable {
+
+  // What a line of a board may be made of; - and _ are floor too, in some packs
+  private static final String BOARD_CHARACTERS = " #@+$*.-_";
+
+  // The extensions of the files we read out of a directory
+  private static final String[] EXTENSIONS = { ".xsb", ".sok", ".txt" };
+
+  // The packs still to read, and the one being read
+  private Iterator<Path> files;
+  private Path file;
+  private BufferedReader reader;
+
+  // How many levels of the current pack have been read
+  private int level;
+
+  // The level read ahead by hasNext, if any
+  private MapData next;
+
+  /**
+   * Opens a pack, or every pack in a directory.
+   *
+   * @param   path    A pack file or a directory of them.
+   */
+  public PackReader(Path path) throws IOException {
+    if (!Files.isDirectory(path)) {
+      this.files = Collections.singletonList(path).iterator();
+      return;
+    }
+
+    // Only the names are kept, not the files
+    try (Stream<Path> paths = Files.walk(path)) {
+      this.files = paths
+        .filter(Files::isRegularFile)
+        .filter(PackReader::isPack)
+        .sorted()
+        .collect(Collectors.toList())
+        .iterator();
+    }
+  }
+
+  /**
+   * Streams the levels of a pack, or of every pack in a directory.
+   * The stream should be closed, so the file being read is too.
+   *
+   * @param   path    A pack file or a directory of them.
+   * @return          The levels, in order.
+   */
+  public static Stream<MapData> stream(Path path) throws IOException {
+    PackReader reader = new PackReader(path);
+    return StreamSupport
+      .stream(Spliterators.spliteratorUnknownSize(reader, Spliterator.ORDERED | Spliterator.NONNULL), false)
+      .onClose(reader::close);
+  }
+
+  /**
+   * Whether or not a file in a directory should be read.
+   *
+   * @param   path    The file.
+   * @return          Yes or no.
+   */
+  private static boolean isPack(Path path) {
+    String name = path.getFileName().toString().toLowerCase();
+    if (name.startsWith("."))
+      return false;
+
+    for (String extension : EXTENSIONS)
+      if (name.endsWith(extension))
+        return true;
+
+    return false;
+  }
+
+  /**
+   * Whether or not there are levels left, reading the next one if needed.
+   *
+   * @return  Yes or no.
+   */
+  @Override
+  public boolean hasNext() {
+    if (this.next == null)
+      this.next = this.readLevel();
+
+    return this.next != null;
+  }
+
+  /**
+   * Returns the next level.
+   *
+   * @return  The level.
+   */
+  @Override
+  public MapData next() {
+    if (!this.hasNext())
+      throw new NoSuchElementException();
+
+    MapData level = this.next;
+    this.next = null;
+    return level;
+  }
+
+  /**
+   * Reads lines until a whole board has gone by, moving on to the next pack when one runs out.
+   *
+   * @return  The board, or null if there are none left.
+   */
+  private MapData readLevel() {
+    List<String> lines = new ArrayList<>();
+    int columns = 0;
+
+    try {
+      while (true) {
+
+        // Open the next pack
+        if (this.reader == null) {
+          if (!this.files.hasNext())
+            break;
+
+          this.file = this.files.next();
+          this.reader = Files.newBufferedReader(this.file, StandardCharsets.ISO_8859_1);
+          this.level = 0;
+        }
+
+        // The end of the pack ends the board too
+        String line = this.reader.readLine();
+        if (line == null) {
+          this.closeReader();
+          if (!lines.isEmpty())
+            break;
+
+          continue;
+        }
+
+        line = stripTrailing(line);
+        if (isBoardLine(line)) {
+          lines.add(line);
+          columns = Math.max(columns, line.length());
+        } else if (!lines.isEmpty()) {
+          break;
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read " + this.file, e);
+    }
+
+    if (lines.isEmpty())
+      return null;
+
+    // Just big enough for the board; short lines are padded with floor
+    int rows = lines.size();
+    char[][] tiles = new char[rows][columns];
+    for (int i = 0; i < rows; i++) {
+      Arrays.fill(tiles[i], ' ');
+      lines.get(i).getChars(0, lines.get(i).length(), tiles[i], 0);
+
+      for (int j = 0; j < columns; j++)
+        if (tiles[i][j] == '-' || tiles[i][j] == '_')
+          tiles[i][j] = ' ';
+    }
+
+    MapData result = new MapData();
+    result.tiles = tiles;
+    result.rows = rows;
+    result.columns = columns;
+    result.name = getName(this.file);
+    result.level = ++this.level;
+
+    return result;
+  }
+
+  /**
+   * Whether or not a line is part of a board.
+   *
+   * @param   line    The line, without trailing whitespace.
+   * @return          Yes or no.
+   */
+  private static boolean isBoardLine(String line) {
+    if (line.indexOf('#') < 0)
+      return false;
+
+    for (int i = 0; i < line.length(); i++)
+      if (BOARD_CHARACTERS.indexOf(line.charAt(i)) < 0)
+        return false;
+
+    return true;
+  }
+
+  /**
+   * Drops the whitespace at the end of a line, carriage returns included.
+   *
+   * @param   line    The line.
+   * @return          The line without it.
+   */
+  private static String stripTrailing(String line) {
+    int end = line.length();
+    while (end > 0 && Character.isWhitespace(line.charAt(end - 1)))
+      end--;
+
+    return line.substring(0, end);
+  }
+
+  /**
+   * Returns the name of a pack, without its extension.
+   *
+   * @param   file    The pack.
+   * @return          Its name.
+   */
+  private static String getName(Path file) {
+    String name = file.getFileName().toString();
+    int dot = name.lastIndexOf('.');
+
+    return dot > 0 ? name.substring(0, dot) : name;
+  }
+
+  /**
+   * Closes the pack being read.
+   */
+  private void closeReader() throws IOException {
+    BufferedReader reader = this.reader;
+    this.reader = null;
+    reader.close();
+  }
+
+  /**
+   * Closes the pack being read, if any; the rest are never opened.
+   */
+  @Override
+  public void close() {
+    this.files = Collections.emptyIterator();
+    this.next = null;
+
+    try {
+      if (this.reader != null)
+        this.closeReader();
+    } catch (IOException e) {
+    }
+  }
+}
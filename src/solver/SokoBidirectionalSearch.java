@@ -0,0 +1,258 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 15:31:06
+ * @ Modified time: 2026-10-17 15:31:06
+ * @ Description:
+ *
+ * Searches from both ends at once.
+ * The forward half pushes crates from the start, best first, like the usual search over pushes.
+ * The backward half starts with every crate on a goal (once for every area the player could be in)
+ * and pulls crates away, breadth first. The two halves take turns, and the search is over once
+ * either one reaches a state the other has seen; the pulls are then replayed as pushes.
+ */
+
+package solver;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
+import solver.SokoStateObjects.SokoMap;
+import solver.SokoStateObjects.SokoState;
+import solver.SokoStateObjects.SokoStateBucketQueue;
+import solver.SokoStateObjects.SokoStateFactory;
+
+public class SokoBidirectionalSearch {
+
+    // The map to search on
+    private SokoMap map;
+
+    // The queues of both halves
+    private Queue<SokoState> forwardStates;
+    private Queue<SokoState> backwardStates;
+
+    // Every state either half has seen, by normalized hash
+    // The first state to reach a hash keeps it
+    private Map<Long, SokoState> forwardSeen;
+    private Map<Long, SokoState> backwardSeen;
+
+    // Whose turn it is
+    private boolean isForwardTurn;
+
+    // The last visited state
+    private SokoState lastVisitedState;
+
+    // How many states were expanded and created, by both halves
+    private int expandedNodes;
+    private int childNodesCreated;
+
+    /**
+     * Creates a new search.
+     *
+     * @param   map             The map to search on.
+     * @param   initialState    The state to start from.
+     */
+    public SokoBidirectionalSearch(SokoMap map, SokoState initialState) {
+        this.map = map;
+        this.forwardStates = new SokoStateBucketQueue(map);
+        this.backwardStates = new ArrayDeque<>();
+        this.forwardSeen = new HashMap<>();
+        this.backwardSeen = new HashMap<>();
+        this.isForwardTurn = true;
+
+        this.expandedNodes = 0;
+        this.childNodesCreated = 1;
+
+        // The forward half starts at the start
+        this.forwardSeen.put(initialState.getNormalizedHash(map), initialState);
+        this.forwardStates.add(initialState);
+
+        // The backward half starts at the end, if there's a single end for the crates
+        // With more goals than crates there'd be too many ways for them to finish
+        int[] goals = map.getGoalLocations();
+        if(goals.length == initialState.getCrateLocations().length)
+            this.addGoalStates(goals);
+    }
+
+    /**
+     * Queues the states with every crate on a goal, one for every area the player could be in.
+     *
+     * @param   goals   The goal locations.
+     */
+    private void addGoalStates(int[] goals) {
+        boolean[][] openCells = this.map.getWalls();
+        boolean[] reached = new boolean[this.map.getCellCount()];
+
+        for(int y = 0; y < openCells.length; y++) {
+            for(int x = 0; x < openCells[y].length; x++) {
+                int location = this.map.encode(x, y);
+
+                // A wall, a crate, or in an area we already have
+                if(!openCells[y][x] || reached[location] || Arrays.stream(goals).anyMatch(goal -> goal == location))
+                    continue;
+
+                // The player goes here, and so does anything it can walk to
+                SokoState state = SokoStateFactory.createInitialState(location, goals, this.map);
+                int[] distances = state.getPlayerDistances(this.map);
+                for(int i = 0; i < distances.length; i++)
+                    if(distances[i] >= 0)
+                        reached[i] = true;
+
+                this.backwardSeen.put(state.getNormalizedHash(this.map), state);
+                this.backwardStates.add(state);
+            }
+        }
+    }
+
+    /**
+     * Whether or not there's anything left to search.
+     * Once either half runs dry there's no way for them to meet.
+     *
+     * @return  Whether or not to keep iterating.
+     */
+    public boolean hasStates() {
+        return !this.forwardStates.isEmpty() &&
+            (!this.backwardStates.isEmpty() || this.backwardSeen.isEmpty());
+    }
+
+    /**
+     * Expands a single state, taking turns between the two halves.
+     *
+     * @return  The solution if the halves met, or an empty string otherwise.
+     */
+    public String iterate() {
+        boolean isForward = this.isForwardTurn || this.backwardStates.isEmpty();
+        this.isForwardTurn = !this.isForwardTurn;
+
+        return isForward
+            ? this.iterateForward()
+            : this.iterateBackward();
+    }
+
+    /**
+     * Expands the cheapest state of the forward half.
+     *
+     * @return  The solution if the halves met, or an empty string otherwise.
+     */
+    private String iterateForward() {
+        SokoState state = this.forwardStates.poll();
+        if(state == null)
+            return "";
+
+        this.expandedNodes += 1;
+        this.lastVisitedState = state;
+
+        // If we got there on our own
+        SokoState.StateStatus status = state.getStatus(this.map);
+        if(status == SokoState.StateStatus.WON)
+            return state.getHistory(this.map);
+
+        // If the state is a dud
+        if(status == SokoState.StateStatus.LOST)
+            return "";
+
+        for(SokoState newState : SokoStateFactory.createNextPushStates(state, this.map)) {
+            long hash = newState.getNormalizedHash(this.map);
+
+            // Already seen
+            if(this.forwardSeen.putIfAbsent(hash, newState) != null)
+                continue;
+
+            // The backward half has been here
+            SokoState meeting = this.backwardSeen.get(hash);
+            if(meeting != null && this.isSameState(newState, meeting))
+                return this.getSolution(newState, meeting);
+
+            this.forwardStates.add(newState);
+            this.childNodesCreated += 1;
+        }
+
+        return "";
+    }
+
+    /**
+     * Expands the oldest state of the backward half.
+     *
+     * @return  The solution if the halves met, or an empty string otherwise.
+     */
+    private String iterateBackward() {
+        SokoState state = this.backwardStates.poll();
+        if(state == null)
+            return "";
+
+        this.expandedNodes += 1;
+
+        for(SokoState newState : SokoStateFactory.createNextPullStates(state, this.map)) {
+            long hash = newState.getNormalizedHash(this.map);
+
+            // Already seen
+            if(this.backwardSeen.putIfAbsent(hash, newState) != null)
+                continue;
+
+            // The forward half has been here
+            SokoState meeting = this.forwardSeen.get(hash);
+            if(meeting != null && this.isSameState(meeting, newState))
+                return this.getSolution(meeting, newState);
+
+            this.backwardStates.add(newState);
+            this.childNodesCreated += 1;
+        }
+
+        return "";
+    }
+
+    /**
+     * Makes sure two states with the same hash really are the same, and not a collision.
+     *
+     * @param   forwardState    The state from the forward half.
+     * @param   backwardState   The state from the backward half.
+     * @return                  Whether or not the crates and the area of the player match.
+     */
+    private boolean isSameState(SokoState forwardState, SokoState backwardState) {
+        return forwardState.getNormalizedPlayer(this.map) == backwardState.getNormalizedPlayer(this.map) &&
+            Arrays.equals(forwardState.getCrateLocations(), backwardState.getCrateLocations());
+    }
+
+    /**
+     * Joins the two halves into the full list of moves.
+     *
+     * @param   forwardState    Where the forward half got to.
+     * @param   backwardState   The same state, as reached by the backward half.
+     * @return                  The moves from the start to the goals.
+     */
+    private String getSolution(SokoState forwardState, SokoState backwardState) {
+        this.lastVisitedState = forwardState;
+
+        return forwardState.getHistory(this.map)
+            + backwardState.getPullHistory(forwardState.getPlayer(), this.map);
+    }
+
+    /**
+     * Returns the last visited state of the forward half.
+     *
+     * @return  The last visited state.
+     */
+    public SokoState getLastVisitedState() {
+        return this.lastVisitedState;
+    }
+
+    /**
+     * Returns the number of expanded states.
+     *
+     * @return  How many states both halves expanded.
+     */
+    public int getExpandedNodes() {
+        return this.expandedNodes;
+    }
+
+    /**
+     * Returns the number of states created.
+     *
+     * @return  How many states both halves queued.
+     */
+    public int getChildNodesCreated() {
+        return this.childNodesCreated;
+    }
+}
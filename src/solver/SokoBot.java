@@ -1,6 +1,22 @@
 package solver;
 
+import solver.SokoStateObjects.SokoMap;
+
 public class SokoBot {
+
+  // How long to keep improving the solution; the GUI gives up at 15 seconds
+  private static final long SOLUTION_TIME_LIMIT = 12000;
+
+  // How many crate groups to remember as deadlocked or not
+  private static final int DEADLOCK_CACHE_SIZE = 1 << 14;
+
+  // How many times the work of the first solution a round may spend on a shorter one before we settle
+  private static final int ANYTIME_ROUND_BUDGET = 256;
+
+  // Run with -Dsoko.threads=<n> to split the search across n threads instead, or 0 for one per core
+  // That engine stops at its first solution and doesn't learn deadlocks, so it's only worth it on hard levels with cores to spare
+  private static final String THREADS_PROPERTY = "soko.threads";
+
   private SokoSolver game;
   public String solveSokobanPuzzle(int width, int height, char[][] mapData, char[][] itemsData) {
 
@@ -44,8 +60,33 @@ public class SokoBot {
     // ! code above this should be moved
     // !!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!
 
-    // Test
-    this.game = new SokoSolver(map);
+    // Only search over pushes; the walking in between is filled in once solved
+    SokoSolverConfig config = new SokoSolverConfig()
+      .setSearchMode(SokoSolver.SearchMode.PUSH)
+      .setQueueType(SokoSolver.QueueType.BUCKET)
+      .setCostEstimate(SokoMap.CostEstimate.MATCHING)
+      .setTimeLimit(SOLUTION_TIME_LIMIT);
+
+    // Split the search across threads if asked to
+    int threads = Integer.getInteger(THREADS_PROPERTY, 1);
+    if(threads == 0)
+      threads = Runtime.getRuntime().availableProcessors();
+
+    if(threads > 1) {
+      config
+        .setEngine(SokoSolver.Engine.HDA_STAR)
+        .setThreadCount(threads);
+
+    // Find something fast, then keep looking for shorter solutions while there's time
+    } else {
+      config
+        .setEngine(SokoSolver.Engine.BEST_FIRST)
+        .setAnytime(true, 1.0f, 1.0f)
+        .setAnytimeRoundBudget(ANYTIME_ROUND_BUDGET)
+        .setDeadlockCacheSize(DEADLOCK_CACHE_SIZE);
+    }
+
+    this.game = new SokoSolver(map, config);
     
     String sol = this.game.solve();
 
@@ -0,0 +1,221 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 14:10:37
+ * @ Modified time: 2026-10-17 14:10:37
+ * @ Description:
+ *
+ * An iterative deepening A* search over crate pushes.
+ * Each round is a depth-first search that gives up on states whose pushes so far plus
+ * estimated pushes left go over a bound; the next round raises the bound to the smallest
+ * value that went over. Only the current path (and its siblings) is kept in memory,
+ * along with a transposition table whose size is fixed up front.
+ */
+
+package solver;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import solver.SokoStateObjects.SokoMap;
+import solver.SokoStateObjects.SokoState;
+import solver.SokoStateObjects.SokoStateFactory;
+import solver.utils.TranspositionTable;
+
+public class SokoIdaSearch {
+
+    // No state went over the bound this round
+    private static final int NO_BOUND = Integer.MAX_VALUE;
+
+    // A state on the current path, with the children we haven't tried yet
+    private static class Frame {
+        private SokoState state;
+        private int depth;
+        private List<SokoState> children = null;
+        private int nextChild = 0;
+
+        private Frame(SokoState state, int depth) {
+            this.state = state;
+            this.depth = depth;
+        }
+    }
+
+    // The map and where the search starts
+    private SokoMap map;
+    private SokoState initialState;
+
+    // The current path
+    private List<Frame> path;
+
+    // States already searched this round, and how deep
+    private TranspositionTable table;
+
+    // The bound of this round and the smallest value that went over it
+    private int bound;
+    private int nextBound;
+
+    // The last visited state
+    private SokoState lastVisitedState;
+
+    // How many states were expanded, over all rounds
+    private int expandedNodes;
+    private int childNodesCreated;
+
+    /**
+     * Creates a new search.
+     * The estimate of the map should be a lower bound on the pushes left (see SokoMap.CostEstimate).
+     *
+     * @param   map             The map to search on.
+     * @param   initialState    The state to start from.
+     * @param   tableSize       How many states the transposition table can hold.
+     */
+    public SokoIdaSearch(SokoMap map, SokoState initialState, int tableSize) {
+        this.map = map;
+        this.initialState = initialState;
+        this.table = new TranspositionTable(tableSize);
+        this.path = new ArrayList<>();
+
+        // The first round only goes as far as the estimate
+        this.bound = this.getEstimate(initialState);
+        this.nextBound = NO_BOUND;
+        this.path.add(new Frame(initialState, 0));
+
+        this.expandedNodes = 0;
+        this.childNodesCreated = 1;
+    }
+
+    /**
+     * Returns the estimated pushes left for a state.
+     *
+     * @param   state   The state to estimate.
+     * @return          The number of pushes.
+     */
+    private int getEstimate(SokoState state) {
+        return state.getLayout().getMatchingCost(this.map);
+    }
+
+    /**
+     * Returns how many pushes lead from a state to one of its children.
+     * Usually that's the child's own push length, but a goal room macro (see SokoGoalRoom) is a
+     * chain of states, so every push along the chain counts.
+     *
+     * @param   parent  The state that was expanded.
+     * @param   child   One of the states it led to.
+     * @return          The number of pushes.
+     */
+    private int getPushesBetween(SokoState parent, SokoState child) {
+        int pushes = 0;
+        for(SokoState state = child; state != parent; state = state.getParent())
+            pushes += state.getPushLength();
+
+        return pushes;
+    }
+
+    /**
+     * Whether or not there's anything left to search.
+     * The search is over once a round ends without any state going over the bound.
+     *
+     * @return  Whether or not to keep iterating.
+     */
+    public boolean hasStates() {
+        return !this.path.isEmpty() || this.nextBound != NO_BOUND;
+    }
+
+    /**
+     * Runs a single step of the search: expands a state or moves on to the next one.
+     *
+     * @return  The solution if one was found, or an empty string otherwise.
+     */
+    public String iterate() {
+
+        // Round over; start the next one with a higher bound
+        if(this.path.isEmpty()) {
+            if(this.nextBound == NO_BOUND)
+                return "";
+
+            this.bound = this.nextBound;
+            this.nextBound = NO_BOUND;
+            this.table.nextRound();
+            this.path.add(new Frame(this.initialState, 0));
+        }
+
+        Frame frame = this.path.get(this.path.size() - 1);
+
+        // Already expanded; go down the next child or back up
+        if(frame.children != null) {
+            if(frame.nextChild < frame.children.size()) {
+                SokoState child = frame.children.get(frame.nextChild++);
+                this.path.add(new Frame(child, frame.depth + this.getPushesBetween(frame.state, child)));
+            }
+            else
+                this.path.remove(this.path.size() - 1);
+
+            return "";
+        }
+
+        SokoState state = frame.state;
+        this.lastVisitedState = state;
+
+        // Done, or a dud
+        SokoState.StateStatus status = state.getStatus(this.map);
+        if(status == SokoState.StateStatus.WON) {
+            this.path.clear();
+            this.nextBound = NO_BOUND;
+            return state.getHistory(this.map);
+        }
+
+        if(status == SokoState.StateStatus.LOST) {
+            this.path.remove(this.path.size() - 1);
+            return "";
+        }
+
+        // Too far for this round
+        int cost = frame.depth + this.getEstimate(state);
+        if(cost > this.bound) {
+            this.nextBound = Math.min(this.nextBound, cost);
+            this.path.remove(this.path.size() - 1);
+            return "";
+        }
+
+        // Already searched from here this round, from as close or closer
+        if(!this.table.visit(state.getNormalizedHash(this.map), frame.depth)) {
+            this.path.remove(this.path.size() - 1);
+            return "";
+        }
+
+        // Try the most promising pushes first
+        this.expandedNodes += 1;
+        frame.children = SokoStateFactory.createNextPushStates(state, this.map);
+        frame.children.sort(Comparator.comparingInt(this::getEstimate));
+        this.childNodesCreated += frame.children.size();
+
+        return "";
+    }
+
+    /**
+     * Returns the last visited state.
+     *
+     * @return  The last state the search looked at.
+     */
+    public SokoState getLastVisitedState() {
+        return this.lastVisitedState;
+    }
+
+    /**
+     * Returns the number of expanded states.
+     *
+     * @return  How many states were expanded, over all rounds.
+     */
+    public int getExpandedNodes() {
+        return this.expandedNodes;
+    }
+
+    /**
+     * Returns the number of states created.
+     *
+     * @return  How many states were created, over all rounds.
+     */
+    public int getChildNodesCreated() {
+        return this.childNodesCreated;
+    }
+}
@@ -11,9 +11,6 @@
 
 package solver.SokoObjects;
 
-import java.util.Map;
-import java.util.Set;
-
 import solver.utils.*;
 
 public class SokoCrate {
@@ -77,54 +74,15 @@ public class SokoCrate {
         return false;
     }
 
-    /**
-     * Returns whether or not the crate is stuck with other crates that are stuck.
-     * 
-     * @param   crates          All crates.
-     * @param   unstuckCrates   Crates that are unstuck.
-     * @param   visitedCrates   Crates visited by this method and other method calls on other crates.
-     * @return                  Whether or not the crate is stuck in a group.
-     */
-    public boolean isStuckInAGroup(Map<Integer, SokoCrate> crates, Set<Integer> unstuckCrates, Set<Integer> visitedCrates) {
-        
-        // If visited, just return its stuck state.
-        if(visitedCrates.contains(this.location))
-            return !unstuckCrates.contains(this.location) && !this.isGood;
-
-        // Add to visited
-        visitedCrates.add(this.location);
-
-        // All neighbors are stuck
-        boolean allNeighborsAreStuck = true;
-
-        // Check if all neighbors are indeed stuck
-        for(int direction : Location.DIRECTIONS)
-            if(crates.containsKey(this.location + direction))
-                if(!crates.get(this.location + direction).isStuckInAGroup(crates, unstuckCrates, visitedCrates))
-                    allNeighborsAreStuck = false;
-
-        // Otherwise, return the stuck state of the other crates and itself
-        return !unstuckCrates.contains(this.location) && !this.isGood && allNeighborsAreStuck;
-    }
-
     /**
      * Returns whether or not the crate can move in the given direction.
+     * Directions are the Grid bits here, since locations depend on the map.
      * 
-     * @param   direction   The direction to check.
-     * @return              Whether or not the move is viable.
+     * @param   side    The side to check, one of the Grid bits.
+     * @return          Whether or not the move is viable.
      */
-    public boolean canMove(int direction) {
-        
-        // Return appropriate check
-        switch(direction) {
-            case Location.NORTH:    return (Grid.NORTH & this.neighbors)    != Grid.NORTH;
-            case Location.EAST:     return (Grid.EAST & this.neighbors)     != Grid.EAST;
-            case Location.SOUTH:    return (Grid.SOUTH & this.neighbors)    != Grid.SOUTH;
-            case Location.WEST:     return (Grid.WEST & this.neighbors)     != Grid.WEST;
-        }
-
-        // Invalid value
-        return false;
+    public boolean canMove(byte side) {
+        return (side & this.neighbors) != side;
     }
 
     /**
@@ -163,11 +121,6 @@ public class SokoCrate {
         public byte neighbors = 0;
         public int location = 0;
 
-        // Location is always required
-        public Builder(short x, short y) {
-            this.location = Location.encode(x, y);
-        }
-
         // Location is always required
         public Builder(int location) {
             this.location = location;
@@ -203,17 +156,6 @@ public class SokoCrate {
         }
     }
 
-    /**
-     * Requests for a new instance of the crate state builder.
-     * 
-     * @param   x   The x-coordinate of the crate.
-     * @param   y   The y-coordinate of the crate.
-     * @return      A new builder for the crate state.
-     */
-    public static Builder create(short x, short y) {
-        return new Builder(x, y);
-    }
-
     /**
      * Requests for a new instance of the crate state builder.
      * 
@@ -0,0 +1,358 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 14:48:52
+ * @ Modified time: 2026-10-17 14:48:52
+ * @ Description:
+ *
+ * A best-first search split across threads (hash-distributed A*).
+ * Every state belongs to one worker, picked by its hash, and only that worker queues,
+ * visits and expands it. Children that belong to another worker are sent to its inbox.
+ * Since no two workers ever look at the same state, the queues and visited sets need no locks.
+ */
+
+package solver;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import solver.SokoStateObjects.SokoMap;
+import solver.SokoStateObjects.SokoState;
+import solver.SokoStateObjects.SokoStateBucketQueue;
+import solver.SokoStateObjects.SokoStateFactory;
+import solver.utils.LongHashSet;
+
+public class SokoParallelSearch {
+
+    // How many visited states each worker makes room for initially
+    private static final int EXPECTED_VISITED_STATES = 1 << 14;
+
+    // How long an idle worker sleeps before looking again, in nanoseconds
+    // Senders and stop wake it sooner; this only bounds a missed wake-up
+    private static final long IDLE_PARK_NANOS = 1_000_000L;
+
+    // The map, shared by all workers; nothing in it changes after it's created
+    private SokoMap map;
+    private SokoSolver.SearchMode searchMode;
+
+    // The workers and their threads
+    private Worker[] workers;
+    private Thread[] threads;
+
+    // States sent to a worker but not yet done with
+    // A worker counts its children before counting off their parent, so this
+    // only reaches zero once there's truly nothing left anywhere
+    private AtomicLong pendingStates;
+
+    // Set by whoever finds the solution first
+    private AtomicReference<String> solution;
+
+    // Tells the workers to stop
+    private volatile boolean isStopped;
+
+    // Counters over all workers
+    private AtomicInteger expandedNodes;
+    private AtomicInteger childNodesCreated;
+
+    // The last visited state of any worker
+    private volatile SokoState lastVisitedState;
+
+    /**
+     * A single thread of the search, along with the states it owns.
+     */
+    private class Worker implements Runnable {
+
+        // States sent here by other workers
+        // Many threads add to it but only this one takes from it
+        private Queue<SokoState> inbox;
+
+        // The usual queue and visited set, only ever touched by this worker
+        private Queue<SokoState> states;
+        private LongHashSet visitedStates;
+
+        // The thread running this worker, and whether or not it's waiting on its inbox
+        private volatile Thread thread;
+        private volatile boolean isIdle;
+
+        /**
+         * Creates a worker.
+         */
+        private Worker() {
+            this.inbox = new ConcurrentLinkedQueue<>();
+            this.states = new SokoStateBucketQueue(map);
+            this.visitedStates = new LongHashSet(EXPECTED_VISITED_STATES);
+        }
+
+        /**
+         * Keeps expanding states until someone finds a solution or there's nothing left.
+         */
+        @Override
+        public void run() {
+            this.thread = Thread.currentThread();
+
+            while(!isStopped) {
+
+                // Move whatever was sent here into the queue
+                for(SokoState state = this.inbox.poll(); state != null; state = this.inbox.poll())
+                    this.states.add(state);
+
+                // Nothing to do; either wait for more or finish
+                // Sleep rather than spin, so idle workers leave the cores to the busy ones
+                SokoState state = this.states.poll();
+                if(state == null) {
+                    if(pendingStates.get() == 0)
+                        stop();
+                    else
+                        this.waitForWork();
+
+                    continue;
+                }
+
+                this.expand(state);
+                pendingStates.decrementAndGet();
+            }
+        }
+
+        /**
+         * Sleeps until something is sent here, the search stops, or a while passes.
+         * The flag is raised before the inbox is checked, so a sender either sees it and wakes
+         * this worker, or sent early enough for the check to see its state.
+         */
+        private void waitForWork() {
+            this.isIdle = true;
+            if(this.inbox.isEmpty() && !isStopped)
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+
+            this.isIdle = false;
+        }
+
+        /**
+         * Wakes this worker if it's waiting on its inbox.
+         */
+        private void wake() {
+            if(this.isIdle)
+                LockSupport.unpark(this.thread);
+        }
+
+        /**
+         * Visits a state and hands its children to their owners.
+         *
+         * @param   state   The state to expand.
+         */
+        private void expand(SokoState state) {
+
+            // Visited after it was put in the queue
+            if(!this.visitedStates.add(getHash(state)))
+                return;
+
+            expandedNodes.incrementAndGet();
+            lastVisitedState = state;
+
+            // If we won
+            SokoState.StateStatus status = state.getStatus(map);
+            if(status == SokoState.StateStatus.WON) {
+                if(solution.compareAndSet(null, state.getHistory(map)))
+                    stop();
+                return;
+            }
+
+            // If the state is a dud
+            if(status == SokoState.StateStatus.LOST)
+                return;
+
+            // Send each child to the worker that owns it
+            for(SokoState newState : getNextStates(state)) {
+                if(newState == null)
+                    continue;
+
+                long hash = getHash(newState);
+                Worker owner = workers[getOwner(hash)];
+
+                // Ours, and already seen
+                if(owner == this && this.visitedStates.contains(hash))
+                    continue;
+
+                // Count it before it can be counted off
+                pendingStates.incrementAndGet();
+                childNodesCreated.incrementAndGet();
+
+                if(owner == this) {
+                    this.states.add(newState);
+                } else {
+                    owner.inbox.offer(newState);
+                    owner.wake();
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a new search.
+     *
+     * @param   map             The map to search on.
+     * @param   initialState    The state to start from.
+     * @param   searchMode      Whether states are single moves or whole pushes.
+     * @param   threadCount     How many workers to run.
+     */
+    public SokoParallelSearch(SokoMap map, SokoState initialState, SokoSolver.SearchMode searchMode, int threadCount) {
+        this.map = map;
+        this.searchMode = searchMode;
+
+        this.pendingStates = new AtomicLong(0);
+        this.solution = new AtomicReference<>(null);
+        this.expandedNodes = new AtomicInteger(0);
+        this.childNodesCreated = new AtomicInteger(1);
+        this.isStopped = false;
+
+        // Create the workers
+        this.workers = new Worker[Math.max(1, threadCount)];
+        this.threads = new Thread[this.workers.length];
+        for(int i = 0; i < this.workers.length; i++)
+            this.workers[i] = new Worker();
+
+        // The initial state goes to its owner
+        this.pendingStates.incrementAndGet();
+        this.workers[this.getOwner(this.getHash(initialState))].inbox.offer(initialState);
+    }
+
+    /**
+     * Returns the hash used to tell states apart.
+     * When searching over pushes, the player only matters up to the area it can walk in.
+     *
+     * @param   state   The state to identify.
+     * @return          The hash of the state.
+     */
+    private long getHash(SokoState state) {
+        return this.searchMode == SokoSolver.SearchMode.PUSH
+            ? state.getNormalizedHash(this.map)
+            : state.getHash();
+    }
+
+    /**
+     * Returns the worker that owns a state.
+     * The bits are mixed first; nearby states shouldn't all end up in the same place.
+     *
+     * @param   hash    The hash of the state.
+     * @return          The index of the worker.
+     */
+    private int getOwner(long hash) {
+        hash ^= hash >>> 29;
+        hash *= 0xbf58476d1ce4e5b9L;
+        hash ^= hash >>> 32;
+
+        return (int) ((hash & Long.MAX_VALUE) % this.workers.length);
+    }
+
+    /**
+     * Returns the states that follow a state.
+     *
+     * @param   state   The state to expand.
+     * @return          The next states; some may be null.
+     */
+    private List<SokoState> getNextStates(SokoState state) {
+        return this.searchMode == SokoSolver.SearchMode.PUSH
+            ? SokoStateFactory.createNextPushStates(state, this.map)
+            : Arrays.asList(
+                SokoStateFactory.createNextState(state, this.map.getNorth(), this.map),
+                SokoStateFactory.createNextState(state, this.map.getEast(), this.map),
+                SokoStateFactory.createNextState(state, this.map.getWest(), this.map),
+                SokoStateFactory.createNextState(state, this.map.getSouth(), this.map));
+    }
+
+    /**
+     * Starts the workers, if they haven't been started yet.
+     * Returns right away; see isDone and getSolution.
+     */
+    public void start() {
+        if(this.threads[0] != null)
+            return;
+
+        for(int i = 0; i < this.workers.length; i++) {
+            this.threads[i] = new Thread(this.workers[i], "soko-worker-" + i);
+            this.threads[i].setDaemon(true);
+            this.threads[i].start();
+        }
+    }
+
+    /**
+     * Runs the search to the end.
+     * If the calling thread is interrupted, the workers are told to stop.
+     *
+     * @return  The solution, or an empty string if there's none.
+     */
+    public String solve() {
+        this.start();
+
+        // Wait for all of them
+        try {
+            for(Thread thread : this.threads)
+                thread.join();
+        } catch(InterruptedException e) {
+            this.stop();
+            Thread.currentThread().interrupt();
+        }
+
+        return this.getSolution();
+    }
+
+    /**
+     * Tells the workers to stop, waking any that are idle.
+     */
+    public void stop() {
+        this.isStopped = true;
+
+        for(Worker worker : this.workers)
+            worker.wake();
+    }
+
+    /**
+     * Whether or not the workers are done.
+     *
+     * @return  Yes or no.
+     */
+    public boolean isDone() {
+        return this.isStopped;
+    }
+
+    /**
+     * Returns the solution found so far.
+     *
+     * @return  The solution, or an empty string if there's none (yet).
+     */
+    public String getSolution() {
+        String solution = this.solution.get();
+        return solution == null ? "" : solution;
+    }
+
+    /**
+     * Returns the last state any worker visited.
+     *
+     * @return  The last visited state.
+     */
+    public SokoState getLastVisitedState() {
+        return this.lastVisitedState;
+    }
+
+    /**
+     * Returns the number of expanded states over all workers.
+     *
+     * @return  How many states were expanded.
+     */
+    public int getExpandedNodes() {
+        return this.expandedNodes.get();
+    }
+
+    /**
+     * Returns the number of states created over all workers.
+     *
+     * @return  How many states were created.
+     */
+    public int getChildNodesCreated() {
+        return this.childNodesCreated.get();
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 18:04:27
+ * @ Modified time: 2026-10-17 18:04:27
+ * @ Description:
+ *
+ * What a call to SokoSolver.solve came back with: how it ended, the solution if there is one,
+ * and how much work it took to get there.
+ */
+
+package solver;
+
+public class SokoResult {
+
+    // How the search ended
+    public enum Status {
+        SOLVED,         // Found a solution (with anytime search, maybe not the shortest)
+        TIMEOUT,        // Ran past the deadline without a solution
+        OUT_OF_BUDGET,  // Expanded too many states or used too much memory without a solution
+        CANCELLED,      // The thread was interrupted before a solution was found
+        UNSOLVABLE,     // Ran out of states; there is no solution
+    }
+
+    private Status status;
+    private String solution;
+    private int expandedNodes;
+    private long elapsedMillis;
+
+    /**
+     * Creates a result.
+     *
+     * @param   status          How the search ended.
+     * @param   solution        The solution, or null if there's none.
+     * @param   expandedNodes   How many states were expanded.
+     * @param   elapsedMillis   How long the search took, in milliseconds.
+     */
+    public SokoResult(Status status, String solution, int expandedNodes, long elapsedMillis) {
+        this.status = status;
+        this.solution = solution;
+        this.expandedNodes = expandedNodes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Returns how the search ended.
+     *
+     * @return  The status.
+     */
+    public Status getStatus() {
+        return this.status;
+    }
+
+    /**
+     * Whether or not there's a solution.
+     *
+     * @return  Yes or no.
+     */
+    public boolean isSolved() {
+        return this.status == Status.SOLVED;
+    }
+
+    /**
+     * Returns the solution.
+     *
+     * @return  The moves, or null if none were found.
+     */
+    public String getSolution() {
+        return this.solution;
+    }
+
+    /**
+     * Returns the number of states expanded.
+     *
+     * @return  How many states were expanded.
+     */
+    public int getExpandedNodes() {
+        return this.expandedNodes;
+    }
+
+    /**
+     * Returns how long the search took.
+     *
+     * @return  The time in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return this.elapsedMillis;
+    }
+}
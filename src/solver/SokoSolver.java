@@ -11,19 +11,48 @@
 package solver;
 
 import java.util.ArrayList;
-import java.util.TreeSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.Set;
 
+import solver.SokoStateObjects.SokoCostModel;
+import solver.SokoStateObjects.SokoDeadlockCache;
 import solver.SokoStateObjects.SokoMap;
 import solver.SokoStateObjects.SokoState;
+import solver.SokoStateObjects.SokoStateBucketQueue;
 import solver.SokoStateObjects.SokoStateComparator;
 import solver.SokoStateObjects.SokoStateFactory;
-import solver.utils.Location;
+import solver.utils.LongHashSet;
+import solver.utils.LongSet;
+import solver.utils.SpillingLongSet;
 
 public class SokoSolver {
 
+    // What counts as a single step of the search
+    public enum SearchMode {
+        STEP,       // Every player move is its own state
+        PUSH,       // Only crate pushes create states; walking is rebuilt at the end
+    }
+
+    // How the queue of states is kept in order
+    public enum QueueType {
+        HEAP,       // A java.util.PriorityQueue with the state comparator
+        BUCKET,     // One bucket per (integer) cost; O(1) push and pop
+    }
+
+    // How the search itself is run
+    public enum Engine {
+        BEST_FIRST, // Always expand the cheapest queued state; remembers every state it visits
+        IDA_STAR,   // Iterative deepening A* over pushes; memory is fixed (see SokoIdaSearch)
+        HDA_STAR,   // Best-first split across threads, one per core by default (see SokoParallelSearch)
+        BIDIRECTIONAL, // Pushes from the start and pulls from the goals until they meet (see SokoBidirectionalSearch)
+    }
+
     // The actual map that stores other info common to the states
     // For instance, wall and goal placement
     private SokoMap map;
@@ -31,10 +60,39 @@ public class SokoSolver {
     // A queue of the states we plan to inspect
     // Note that states are self-contained and need no references to other states to explain themselves.
     // Look at the SokoState file for more info.
-    private PriorityQueue<SokoState> states;
+    private Queue<SokoState> states;
+
+    // How many visited states we make room for initially
+    // The set grows past this on its own; this just saves some early resizing
+    private static final int EXPECTED_VISITED_STATES = 1 << 16;
+
+    // Visited states, by hash
+    // These may spill to disk past a threshold (see SokoSolverConfig.setSpillThreshold)
+    private LongSet visitedStates;
+
+    // How many iterations go by between checks of the heap; the clock and interrupts are checked every time
+    private static final int HEAP_CHECK_INTERVAL = 1024;
+
+    // How long to wait between checks on the workers, in milliseconds
+    private static final long PARALLEL_CHECK_MILLIS = 10;
+
+    // Used instead of the queue when running IDA*
+    private SokoIdaSearch idaSearch;
 
-    // Visited states 
-    private Set<String> visitedStates;
+    // Used instead of the queue when running in parallel
+    private SokoParallelSearch parallelSearch;
+
+    // Used instead of the queue when searching from both ends
+    private SokoBidirectionalSearch bidirectionalSearch;
+
+    // When verifying hashes, the serials behind each visited hash
+    // Serials that collided with a different state's hash are kept on the side
+    private boolean verifyHashes;
+    private Map<Long, String> visitedSerials;
+    private Set<String> collidedSerials;
+
+    // Deadlocks learned along the way, if the config asks for them
+    private SokoDeadlockCache deadlockCache;
 
     // The last visited state
     private SokoState lastVisitedState;
@@ -42,6 +100,21 @@ public class SokoSolver {
     // Done searching
     private boolean isDone;
 
+    // How the search was set up
+    private SokoSolverConfig config;
+
+    // Where the search starts; anytime search starts over from here after each solution
+    private SokoState initialState;
+
+    // The shortest solution found so far, when searching anytime
+    private String bestSolution;
+
+    // How many states anytime search expanded for its first solution, and before the current round
+    private int firstRoundExpansions, roundStartExpansions;
+
+    // How states are expanded
+    private SearchMode searchMode;
+
     private int childNodesCreated, expandedNodes;
 
     private int initialCost;
@@ -53,12 +126,45 @@ public class SokoSolver {
      * We then add the next possible VALID states.
      */
     public SokoSolver(char[][] charMap) {
+        this(charMap, new SokoSolverConfig());
+    }
+
+    /**
+     * Initialize the game with everything spelled out in a config.
+     * IDA* always searches over pushes with the MATCHING estimate, which doesn't overshoot;
+     * the search mode, hash verification and queue only apply to the best-first engine.
+     * The parallel engine uses the search mode, but always trusts hashes and uses bucket queues.
+     * The bidirectional engine always searches over pushes (and pulls), and checks its hashes.
+     * Anytime search and the time limit only apply to the best-first engine.
+     * 
+     * @param   charMap     The map to solve.
+     * @param   config      How to search.
+     */
+    public SokoSolver(char[][] charMap, SokoSolverConfig config) {
+        SearchMode searchMode = config.getSearchMode();
+        boolean verifyHashes = config.getVerifyHashes();
+        Engine engine = config.getEngine();
+        this.config = config;
+
+        // IDA* prunes on the estimate, so it needs one that doesn't overshoot; CENTROID is always 0 there
+        SokoMap.CostEstimate costEstimate = engine == Engine.IDA_STAR
+            ? SokoMap.CostEstimate.MATCHING
+            : config.getCostEstimate();
 
-        // Create the map
-        this.map = new SokoMap(charMap);
+        // Create the map; the cost model is copied, since anytime search changes it
+        this.map = new SokoMap(charMap, costEstimate, new SokoCostModel(config.getCostModel()));
+        this.searchMode = searchMode;
 
         // Init visited
-        this.visitedStates = new TreeSet<>();
+        this.visitedStates = this.createVisitedSet();
+        this.verifyHashes = verifyHashes;
+        this.visitedSerials = verifyHashes ? new HashMap<>() : null;
+        this.collidedSerials = verifyHashes ? new HashSet<>() : null;
+
+        // Init the learned deadlocks
+        this.deadlockCache = config.getDeadlockCacheSize() > 0
+            ? new SokoDeadlockCache(this.map, config.getDeadlockCacheSize())
+            : null;
 
         // Done
         this.isDone = false;
@@ -68,16 +174,28 @@ public class SokoSolver {
         
         // Init the priority queue with an initial size of 32
         // The comparator compares the states priority evaluations
-        this.states = new PriorityQueue<SokoState>(32, comparator);
+        // Either way, each state computes its cost only once
+        this.states = config.getQueueType() == QueueType.BUCKET
+            ? new SokoStateBucketQueue(this.map)
+            : new PriorityQueue<SokoState>(32, comparator);
 
         // The initial state
         SokoState initialState = SokoStateFactory.createInitialState(
             this.getInitialPlayerState(charMap), 
             this.getInitialCratesState(charMap), 
             this.map);
-
-        // Add initial state to queue
-        this.states.add(initialState);
+        this.initialState = initialState;
+
+        // Add initial state to queue, or hand it to IDA*
+        if(engine == Engine.IDA_STAR)
+            this.idaSearch = new SokoIdaSearch(this.map, initialState, config.getTranspositionTableSize());
+        else if(engine == Engine.HDA_STAR)
+            this.parallelSearch = new SokoParallelSearch(
+                this.map, initialState, searchMode, config.getThreadCount());
+        else if(engine == Engine.BIDIRECTIONAL)
+            this.bidirectionalSearch = new SokoBidirectionalSearch(this.map, initialState);
+        else
+            this.states.add(initialState);
         
         this.initialCost = initialState.getCost(this.map);
         this.hHeuristicCost = initialState.getHHeuristicFactor(this.map);
@@ -99,9 +217,9 @@ public class SokoSolver {
 
         // Return the location of the player
         for(int y = 0; y < charMap.length; y++)
-            for(int x = 0; x < charMap[0].length; x++)
+            for(int x = 0; x < charMap[y].length; x++)
                 if(charMap[y][x] == '@' || charMap[y][x] == '+')
-                    return Location.encode(x, y);
+                    return this.map.encode(x, y);
 
         // No player found, should not happen
         return -1;
@@ -120,9 +238,9 @@ public class SokoSolver {
 
         // Append crates
         for(int y = 0; y < charMap.length; y++)
-            for(int x = 0; x < charMap[0].length; x++)
+            for(int x = 0; x < charMap[y].length; x++)
                 if(charMap[y][x] == '$' || charMap[y][x] == '*')
-                    crates.add(Location.encode(x, y));
+                    crates.add(this.map.encode(x, y));
                     
         // Return an array of ints
         return crates
@@ -149,6 +267,87 @@ public class SokoSolver {
         return this.map;
     }
 
+    /**
+     * Returns the serial used to tell whether or not a state was visited.
+     * When searching over pushes, the player only matters up to the area it can walk in.
+     * 
+     * @param   state   The state to identify.
+     * @return          The serial of the state.
+     */
+    private String getSerial(SokoState state) {
+        return this.searchMode == SearchMode.PUSH
+            ? state.getNormalizedSerial(this.map)
+            : state.getSerial();
+    }
+
+    /**
+     * Returns the hash used to tell whether or not a state was visited.
+     * Same idea as the serial above.
+     * 
+     * @param   state   The state to identify.
+     * @return          The hash of the state.
+     */
+    private long getHash(SokoState state) {
+        return this.searchMode == SearchMode.PUSH
+            ? state.getNormalizedHash(this.map)
+            : state.getHash();
+    }
+
+    /**
+     * Checks whether or not a state (or one equivalent to it) was visited.
+     * 
+     * @param   state   The state to check.
+     * @return          Whether or not it was visited.
+     */
+    private boolean isVisited(SokoState state) {
+        long hash = this.getHash(state);
+
+        // Never seen the hash
+        if(!this.visitedStates.contains(hash))
+            return false;
+
+        // Trust the hash
+        if(!this.verifyHashes)
+            return true;
+
+        // Make sure it's the same state and not a collision
+        String serial = this.getSerial(state);
+        return serial.equals(this.visitedSerials.get(hash)) || this.collidedSerials.contains(serial);
+    }
+
+    /**
+     * Creates an empty set of visited states.
+     * 
+     * @return  A set on the heap, or one that can spill to disk if the config asks for it.
+     */
+    private LongSet createVisitedSet() {
+        long spillThreshold = this.config.getSpillThreshold();
+
+        return spillThreshold > 0
+            ? new SpillingLongSet(EXPECTED_VISITED_STATES, spillThreshold)
+            : new LongHashSet(EXPECTED_VISITED_STATES);
+    }
+
+    /**
+     * Marks a state as visited.
+     * 
+     * @param   state   The state to mark.
+     */
+    private void setVisited(SokoState state) {
+        long hash = this.getHash(state);
+
+        // First state with that hash
+        if(this.visitedStates.add(hash)) {
+            if(this.verifyHashes)
+                this.visitedSerials.put(hash, this.getSerial(state));
+            return;
+        }
+
+        // A different state got there first
+        if(this.verifyHashes && !this.getSerial(state).equals(this.visitedSerials.get(hash)))
+            this.collidedSerials.add(this.getSerial(state));
+    }
+
     /**
      * A helper method for visualizing and debugging.
      * Instead of a loop, it runs a single iteration of the search.
@@ -156,37 +355,69 @@ public class SokoSolver {
      * @return  The final state found, or an empty string if not done.
      */
     public String iterate() {
+
+        // IDA* keeps its own states
+        if(this.idaSearch != null)
+            return this.iterateIdaSearch();
+
+        // So do the workers
+        if(this.parallelSearch != null)
+            return this.iterateParallelSearch();
+
+        // And both halves of the bidirectional search
+        if(this.bidirectionalSearch != null)
+            return this.iterateBidirectionalSearch();
         
+        // This round used up its share without beating the best, so settle for that
+        if(this.isRoundOverBudget()) {
+            this.isDone = true;
+            return this.bestSolution;
+        }
+
         // Get the latest in the queue
         SokoState state = this.states.poll();
             
-        // If visited earlier after it was put in queue
-        if(this.visitedStates.contains(state.getSerial()))
+        // If visited earlier after it was put in queue, or it can't beat what we have
+        if(this.isVisited(state) || this.isWorseThanBest(state))
             return "";
         
         this.expandedNodes += 1;
 
-        // Add the state serials to their sets
-        this.visitedStates.add(state.getSerial());
+        // Add the state to the visited set
+        this.setVisited(state);
         this.lastVisitedState = state;
 
         // If we won
-        if(state.getStatus(this.map) == SokoState.StateStatus.WON) {
+        SokoState.StateStatus status = state.getStatus(this.map);
+        if(status == SokoState.StateStatus.WON) {
+            String solution = state.getHistory(this.map);
+            if(this.bestSolution == null || solution.length() < this.bestSolution.length())
+                this.bestSolution = solution;
+
+            // The later rounds get a budget based on this one
+            if(this.firstRoundExpansions == 0)
+                this.firstRoundExpansions = this.expandedNodes;
+
+            // Look for a shorter one, unless the weight is as low as it goes
+            if(this.config.isAnytime() && this.startNextRound())
+                return "";
+
             this.isDone = true;
-            return state.getHistory();
+            return this.bestSolution;
         }
 
         // If the state is a dud
-        if(state.getStatus(this.map) == SokoState.StateStatus.LOST)
+        if(status == SokoState.StateStatus.LOST)
             return "";
 
         // Otherwise, keep checking
-        SokoState[] newStates = {
-            SokoStateFactory.createNextState(state, Location.NORTH, this.map),
-            SokoStateFactory.createNextState(state, Location.EAST, this.map),
-            SokoStateFactory.createNextState(state, Location.WEST, this.map),
-            SokoStateFactory.createNextState(state, Location.SOUTH, this.map),
-        };
+        List<SokoState> newStates = this.searchMode == SearchMode.PUSH
+            ? SokoStateFactory.createNextPushStates(state, this.map)
+            : Arrays.asList(
+                SokoStateFactory.createNextState(state, this.map.getNorth(), this.map),
+                SokoStateFactory.createNextState(state, this.map.getEast(), this.map),
+                SokoStateFactory.createNextState(state, this.map.getWest(), this.map),
+                SokoStateFactory.createNextState(state, this.map.getSouth(), this.map));
 
         // Add the valid states we haven't visited
         for(SokoState newState : newStates) {
@@ -195,8 +426,12 @@ public class SokoSolver {
             if(newState == null)
                 continue;
 
-            // The state has been visited
-            if(this.visitedStates.contains(newState.getSerial()))
+            // The state has been visited, or can't beat what we have
+            if(this.isVisited(newState) || this.isWorseThanBest(newState))
+                continue;
+
+            // The crates around the push are a deadlock we know of, or just found
+            if(this.deadlockCache != null && this.deadlockCache.isDeadlocked(newState))
                 continue;
 
             // Otherwise, queue the state
@@ -209,25 +444,305 @@ public class SokoSolver {
     }
 
     /**
-     * Attempts to solve the puzzle.
+     * Whether or not a state can only lead to solutions at least as long as the best so far.
+     * Every push left takes at least a move; only the matching estimate never overshoots those.
+     * 
+     * @param   state   The state to check.
+     * @return          Whether or not to drop the state.
+     */
+    private boolean isWorseThanBest(SokoState state) {
+        if(this.bestSolution == null)
+            return false;
+
+        int pushesLeft = this.map.getCostEstimate() == SokoMap.CostEstimate.MATCHING
+            ? state.getLayout().getMatchingCost(this.map)
+            : 0;
+
+        return (long) state.getMoveCount() + pushesLeft >= this.bestSolution.length();
+    }
+
+    /**
+     * Whether or not the current round of anytime search has expanded all it may.
+     * Only rounds after the first have a budget (see SokoSolverConfig.setAnytimeRoundBudget).
+     * 
+     * @return  Whether or not to stop with the best solution so far.
+     */
+    private boolean isRoundOverBudget() {
+        int budget = this.config.getAnytimeRoundBudget();
+        if(budget <= 0 || this.bestSolution == null)
+            return false;
+
+        return (long) this.expandedNodes - this.roundStartExpansions >= (long) budget * this.firstRoundExpansions;
+    }
+
+    /**
+     * Starts another round of anytime search, with a lower weight on the estimate.
+     * The states still queued are kept, along with the initial state, and everything
+     * may be visited again, since a shorter path might get there now.
+     * 
+     * @return  Whether or not there was any weight left to lower.
+     */
+    private boolean startNextRound() {
+        SokoCostModel model = this.map.getCostModel();
+        float finalWeight = this.config.getAnytimeFinalWeight();
+        if(model.getMatchingWeight() <= finalWeight)
+            return false;
+
+        model.setMatchingWeight(Math.max(finalWeight, model.getMatchingWeight() - this.config.getAnytimeWeightStep()));
+        this.roundStartExpansions = this.expandedNodes;
+
+        // Take everything out, so it can go back in under the new costs
+        List<SokoState> pending = new ArrayList<>(this.states.size() + 1);
+        for(SokoState state = this.states.poll(); state != null; state = this.states.poll())
+            pending.add(state);
+        pending.add(this.initialState);
+
+        // Forget what was visited
+        this.visitedStates.close();
+        this.visitedStates = this.createVisitedSet();
+        if(this.verifyHashes) {
+            this.visitedSerials.clear();
+            this.collidedSerials.clear();
+        }
+
+        for(SokoState state : pending) {
+            if(this.isWorseThanBest(state))
+                continue;
+
+            state.clearCost();
+            this.states.add(state);
+        }
+
+        return true;
+    }
+
+    /**
+     * Runs a single step of IDA*.
+     * 
+     * @return  The final state found, or an empty string if not done.
+     */
+    private String iterateIdaSearch() {
+        String solution = this.idaSearch.iterate();
+
+        this.lastVisitedState = this.idaSearch.getLastVisitedState();
+        this.expandedNodes = this.idaSearch.getExpandedNodes();
+        this.childNodesCreated = this.idaSearch.getChildNodesCreated();
+
+        // Found it, or nothing left
+        if(solution.length() > 0 || !this.idaSearch.hasStates())
+            this.isDone = true;
+
+        return solution;
+    }
+
+    /**
+     * Runs a single step of the bidirectional search.
+     * 
+     * @return  The final state found, or an empty string if not done.
+     */
+    private String iterateBidirectionalSearch() {
+        String solution = this.bidirectionalSearch.iterate();
+
+        this.lastVisitedState = this.bidirectionalSearch.getLastVisitedState();
+        this.expandedNodes = this.bidirectionalSearch.getExpandedNodes();
+        this.childNodesCreated = this.bidirectionalSearch.getChildNodesCreated();
+
+        // Found it, or nothing left
+        if(solution.length() > 0 || !this.bidirectionalSearch.hasStates())
+            this.isDone = true;
+
+        return solution;
+    }
+
+    /**
+     * Checks on the parallel search.
+     * The workers run on their own, so the first call starts them and later calls just check in.
+     * 
+     * @return  The final state found, or an empty string if not done.
+     */
+    private String iterateParallelSearch() {
+        this.parallelSearch.start();
+
+        this.lastVisitedState = this.parallelSearch.getLastVisitedState();
+        this.expandedNodes = this.parallelSearch.getExpandedNodes();
+        this.childNodesCreated = this.parallelSearch.getChildNodesCreated();
+        this.isDone = this.parallelSearch.isDone();
+
+        return this.parallelSearch.getSolution();
+    }
+
+    /**
+     * Whether or not there are states left to inspect.
+     * 
+     * @return  Whether or not the search can go on.
+     */
+    private boolean hasStates() {
+        if(this.idaSearch != null)
+            return this.idaSearch.hasStates();
+
+        if(this.bidirectionalSearch != null)
+            return this.bidirectionalSearch.hasStates();
+
+        return !this.states.isEmpty();
+    }
+
+    /**
+     * Attempts to solve the puzzle, within the time limit of the config, if any.
      * 
      * @return  A string containing the attempted solution.
      */
     public String solve() {
-        
+        long timeLimit = this.config.getTimeLimit();
+        long deadline = timeLimit > 0 ? System.currentTimeMillis() + timeLimit : 0;
+
+        SokoResult result = this.solve(deadline, 0, 0);
+        return result.isSolved() ? result.getSolution() : "No solution found.";
+    }
+
+    /**
+     * Attempts to solve the puzzle, giving up once any of the limits is hit or the thread is interrupted.
+     * The limits are checked every few iterations, so the search may run a little past them.
+     * With anytime search, the best solution found before a limit counts as solved.
+     * 
+     * @param   deadline            When to stop, as in System.currentTimeMillis, or 0 for never.
+     * @param   maxExpandedNodes    How many states may be expanded, or 0 for no limit.
+     * @param   heapBudget          How many bytes of heap may be in use, or 0 for no limit.
+     * @return                      How the search went.
+     */
+    public SokoResult solve(long deadline, long maxExpandedNodes, long heapBudget) {
+        long startTime = System.nanoTime();
+
+        // Work in nanoTime, so changes to the clock don't matter
+        long deadlineNanos = deadline > 0
+            ? startTime + (deadline - System.currentTimeMillis()) * 1_000_000L
+            : 0;
+
+        // Learning deadlocks can take a while per push, so it has to watch the clock too
+        if(this.deadlockCache != null)
+            this.deadlockCache.setDeadline(deadlineNanos);
+
+        SokoResult.Status status = this.parallelSearch != null
+            ? this.runParallelSearch(deadlineNanos, maxExpandedNodes, heapBudget)
+            : this.runSearch(deadlineNanos, maxExpandedNodes, heapBudget);
+
+        this.isDone = true;
+        this.visitedStates.close();
+
+        // Ran out of states or hit a limit after finding something, when searching anytime
+        if(this.bestSolution != null)
+            status = SokoResult.Status.SOLVED;
+
+        return new SokoResult(status, this.bestSolution, this.getExpandedNodes(),
+            (System.nanoTime() - startTime) / 1_000_000L);
+    }
+
+    /**
+     * Iterates until there's a solution, no states, or a limit is hit.
+     * 
+     * @param   deadlineNanos       When to stop, as in System.nanoTime, or 0 for never.
+     * @param   maxExpandedNodes    How many states may be expanded, or 0 for no limit.
+     * @param   heapBudget          How many bytes of heap may be in use, or 0 for no limit.
+     * @return                      How the search ended.
+     */
+    private SokoResult.Status runSearch(long deadlineNanos, long maxExpandedNodes, long heapBudget) {
+
         // While we have states to inspect
-        while(!this.states.isEmpty()) {
+        for(int i = 1; this.hasStates(); i++) {
             
             // The solution found so far
             String solution = this.iterate();
 
             // If it exists
-            if(solution.length() > 0)
-                return solution;
+            if(solution.length() > 0) {
+                this.bestSolution = solution;
+                return SokoResult.Status.SOLVED;
+            }
+
+            // Counting is cheap, so do it every time
+            if(maxExpandedNodes > 0 && this.getExpandedNodes() >= maxExpandedNodes)
+                return SokoResult.Status.OUT_OF_BUDGET;
+
+            // So is the clock, next to an iteration; the heap only every so often
+            SokoResult.Status status = this.checkLimits(deadlineNanos, heapBudget, i % HEAP_CHECK_INTERVAL == 0);
+            if(status != null)
+                return status;
         }
 
-        this.isDone = true;
-        return "No solution found.";
+        return SokoResult.Status.UNSOLVABLE;
+    }
+
+    /**
+     * Runs the workers and checks on them until they're done or a limit is hit.
+     * 
+     * @param   deadlineNanos       When to stop, as in System.nanoTime, or 0 for never.
+     * @param   maxExpandedNodes    How many states may be expanded, or 0 for no limit.
+     * @param   heapBudget          How many bytes of heap may be in use, or 0 for no limit.
+     * @return                      How the search ended.
+     */
+    private SokoResult.Status runParallelSearch(long deadlineNanos, long maxExpandedNodes, long heapBudget) {
+        SokoResult.Status status = null;
+        this.parallelSearch.start();
+
+        while(!this.parallelSearch.isDone()) {
+            try {
+                Thread.sleep(PARALLEL_CHECK_MILLIS);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            status = maxExpandedNodes > 0 && this.parallelSearch.getExpandedNodes() >= maxExpandedNodes
+                ? SokoResult.Status.OUT_OF_BUDGET
+                : this.checkLimits(deadlineNanos, heapBudget, true);
+
+            if(status != null) {
+                this.parallelSearch.stop();
+                break;
+            }
+        }
+
+        // Catch up on what the workers did
+        String solution = this.iterateParallelSearch();
+        if(solution.length() > 0) {
+            this.bestSolution = solution;
+            return SokoResult.Status.SOLVED;
+        }
+
+        return status != null ? status : SokoResult.Status.UNSOLVABLE;
+    }
+
+    /**
+     * Checks for an interrupt, the deadline and, if asked, the heap.
+     * Asking the runtime about the heap isn't free, so that's left to the caller to space out.
+     * 
+     * @param   deadlineNanos   When to stop, as in System.nanoTime, or 0 for never.
+     * @param   heapBudget      How many bytes of heap may be in use, or 0 for no limit.
+     * @param   checkHeap       Whether or not to check the heap this time.
+     * @return                  Why to stop, or null to keep going.
+     */
+    private SokoResult.Status checkLimits(long deadlineNanos, long heapBudget, boolean checkHeap) {
+        if(Thread.currentThread().isInterrupted())
+            return SokoResult.Status.CANCELLED;
+
+        if(deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0)
+            return SokoResult.Status.TIMEOUT;
+
+        if(checkHeap && heapBudget > 0) {
+            Runtime runtime = Runtime.getRuntime();
+            if(runtime.totalMemory() - runtime.freeMemory() > heapBudget)
+                return SokoResult.Status.OUT_OF_BUDGET;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the shortest solution found so far.
+     * Without anytime search, that's the solution, once there is one.
+     * 
+     * @return  The solution, or null if there's none yet.
+     */
+    public String getBestSolution() {
+        return this.bestSolution;
     }
 
     /**
@@ -244,6 +759,9 @@ public class SokoSolver {
      * @return integer of how many of child nodes created.
      */
     public int getChildNodesCreated() {
+        if(this.parallelSearch != null)
+            return this.parallelSearch.getChildNodesCreated();
+
         return this.childNodesCreated;
     }
 
@@ -252,6 +770,9 @@ public class SokoSolver {
      * @return integer of how many noddes expanded.
      */
     public int getExpandedNodes() {
+        if(this.parallelSearch != null)
+            return this.parallelSearch.getExpandedNodes();
+
         return this.expandedNodes;
     }
 
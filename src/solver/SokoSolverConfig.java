@@ -0,0 +1,272 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 17:18:09
+ * @ Modified time: 2026-10-17 17:18:09
+ * @ Description:
+ *
+ * Everything that decides how a SokoSolver searches, in one place.
+ * The defaults are the same as those of SokoSolver(char[][]).
+ * Setters return the config, so they can be chained.
+ */
+
+package solver;
+
+import solver.SokoStateObjects.SokoCostModel;
+import solver.SokoStateObjects.SokoMap;
+
+public class SokoSolverConfig {
+
+    // See the enums in SokoSolver and SokoMap
+    private SokoSolver.SearchMode searchMode = SokoSolver.SearchMode.STEP;
+    private SokoSolver.QueueType queueType = SokoSolver.QueueType.HEAP;
+    private SokoSolver.Engine engine = SokoSolver.Engine.BEST_FIRST;
+    private SokoMap.CostEstimate costEstimate = SokoMap.CostEstimate.CENTROID;
+    private boolean verifyHashes = false;
+
+    // The weights behind the cost of each state
+    private SokoCostModel costModel = new SokoCostModel();
+
+    // Anytime search: after a solution, lower the matching weight by the step and keep going for
+    // a shorter one, until the weight gets to the final weight or time runs out
+    // Only the best-first engine does this
+    private boolean isAnytime = false;
+    private float anytimeWeightStep = 1.0f;
+    private float anytimeFinalWeight = 1.0f;
+
+    // How many states a round after the first may expand without a shorter solution, as a multiple
+    // of what the first round took; a round that runs out ends the search, and 0 means no limit
+    private int anytimeRoundBudget = 0;
+
+    // How long solve may take, in milliseconds; 0 means no limit
+    private long timeLimit = 0;
+
+    // How much heap may be in use before the visited states move to disk, in bytes; 0 means never
+    private long spillThreshold = 0;
+
+    // How many learned deadlocks to remember (see SokoDeadlockCache); 0 means don't learn any
+    private int deadlockCacheSize = 0;
+
+    // How many states the IDA* transposition table holds; 1 << 20 takes 16 MB
+    private int transpositionTableSize = 1 << 20;
+
+    // How many workers the HDA* engine splits the search across; one per core by default
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Sets what counts as a single step of the search.
+     *
+     * @param   searchMode  Whether states are single moves or whole pushes.
+     * @return              This config.
+     */
+    public SokoSolverConfig setSearchMode(SokoSolver.SearchMode searchMode) {
+        this.searchMode = searchMode;
+        return this;
+    }
+
+    /**
+     * Sets how the queue of states is kept in order.
+     *
+     * @param   queueType   The kind of queue.
+     * @return              This config.
+     */
+    public SokoSolverConfig setQueueType(SokoSolver.QueueType queueType) {
+        this.queueType = queueType;
+        return this;
+    }
+
+    /**
+     * Sets how the search is run.
+     *
+     * @param   engine  The search engine.
+     * @return          This config.
+     */
+    public SokoSolverConfig setEngine(SokoSolver.Engine engine) {
+        this.engine = engine;
+        return this;
+    }
+
+    /**
+     * Sets how states estimate the work they have left.
+     * The IDA* engine ignores this and always uses MATCHING.
+     *
+     * @param   costEstimate    The estimate.
+     * @return                  This config.
+     */
+    public SokoSolverConfig setCostEstimate(SokoMap.CostEstimate costEstimate) {
+        this.costEstimate = costEstimate;
+        return this;
+    }
+
+    /**
+     * Sets whether or not equal hashes are double checked with serials.
+     *
+     * @param   verifyHashes    Yes or no.
+     * @return                  This config.
+     */
+    public SokoSolverConfig setVerifyHashes(boolean verifyHashes) {
+        this.verifyHashes = verifyHashes;
+        return this;
+    }
+
+    /**
+     * Sets the weights behind the cost of each state.
+     * The solver works on a copy, so the model can be reused.
+     *
+     * @param   costModel   The cost model.
+     * @return              This config.
+     */
+    public SokoSolverConfig setCostModel(SokoCostModel costModel) {
+        this.costModel = costModel;
+        return this;
+    }
+
+    /**
+     * Turns anytime search on or off.
+     * The first solution is found with the matching weight of the cost model; each one after
+     * that lowers the weight by the step, until the final weight is reached.
+     * Only the best-first engine searches anytime; the others stop at their first solution.
+     *
+     * @param   isAnytime       Whether or not to keep improving solutions.
+     * @param   weightStep      How much to lower the weight by after each solution.
+     * @param   finalWeight     The weight to stop at.
+     * @return                  This config.
+     */
+    public SokoSolverConfig setAnytime(boolean isAnytime, float weightStep, float finalWeight) {
+        this.isAnytime = isAnytime;
+        this.anytimeWeightStep = weightStep;
+        this.anytimeFinalWeight = finalWeight;
+        return this;
+    }
+
+    /**
+     * Sets how long anytime search keeps looking for a shorter solution.
+     * Each round after the first may expand this many times the states the first round took;
+     * a round that runs out without a shorter solution ends the search with the best so far.
+     *
+     * @param   anytimeRoundBudget  The multiple, or 0 to keep going until the final weight or the time limit.
+     * @return                      This config.
+     */
+    public SokoSolverConfig setAnytimeRoundBudget(int anytimeRoundBudget) {
+        this.anytimeRoundBudget = anytimeRoundBudget;
+        return this;
+    }
+
+    /**
+     * Sets how long solve may take.
+     * When time runs out, the best solution so far is returned.
+     *
+     * @param   timeLimit   The limit in milliseconds, or 0 for none.
+     * @return              This config.
+     */
+    public SokoSolverConfig setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+        return this;
+    }
+
+    /**
+     * Sets when the visited states move from the heap to a memory-mapped file.
+     * Only the best-first engine does this (see SpillingLongSet).
+     *
+     * @param   spillThreshold  How many bytes of heap may be in use first, or 0 for never.
+     * @return                  This config.
+     */
+    public SokoSolverConfig setSpillThreshold(long spillThreshold) {
+        this.spillThreshold = spillThreshold;
+        return this;
+    }
+
+    /**
+     * Sets how many crate groups the solver remembers as deadlocked or not.
+     * Only the best-first engine learns deadlocks (see SokoDeadlockCache).
+     *
+     * @param   deadlockCacheSize   How many groups to remember, or 0 to not learn any.
+     * @return                      This config.
+     */
+    public SokoSolverConfig setDeadlockCacheSize(int deadlockCacheSize) {
+        this.deadlockCacheSize = deadlockCacheSize;
+        return this;
+    }
+
+    /**
+     * Sets how many states the IDA* engine's transposition table holds, which caps its memory.
+     * Each takes 16 bytes; the size is rounded down to a power of two.
+     *
+     * @param   transpositionTableSize  How many states to hold.
+     * @return                          This config.
+     */
+    public SokoSolverConfig setTranspositionTableSize(int transpositionTableSize) {
+        this.transpositionTableSize = transpositionTableSize;
+        return this;
+    }
+
+    /**
+     * Sets how many threads the HDA* engine searches with (see SokoParallelSearch).
+     *
+     * @param   threadCount     How many threads to use.
+     * @return                  This config.
+     */
+    public SokoSolverConfig setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+        return this;
+    }
+
+    public SokoSolver.SearchMode getSearchMode() {
+        return this.searchMode;
+    }
+
+    public SokoSolver.QueueType getQueueType() {
+        return this.queueType;
+    }
+
+    public SokoSolver.Engine getEngine() {
+        return this.engine;
+    }
+
+    public SokoMap.CostEstimate getCostEstimate() {
+        return this.costEstimate;
+    }
+
+    public boolean getVerifyHashes() {
+        return this.verifyHashes;
+    }
+
+    public SokoCostModel getCostModel() {
+        return this.costModel;
+    }
+
+    public boolean isAnytime() {
+        return this.isAnytime;
+    }
+
+    public float getAnytimeWeightStep() {
+        return this.anytimeWeightStep;
+    }
+
+    public float getAnytimeFinalWeight() {
+        return this.anytimeFinalWeight;
+    }
+
+    public int getAnytimeRoundBudget() {
+        return this.anytimeRoundBudget;
+    }
+
+    public long getTimeLimit() {
+        return this.timeLimit;
+    }
+
+    public long getSpillThreshold() {
+        return this.spillThreshold;
+    }
+
+    public int getDeadlockCacheSize() {
+        return this.deadlockCacheSize;
+    }
+
+    public int getTranspositionTableSize() {
+        return this.transpositionTableSize;
+    }
+
+    public int getThreadCount() {
+        return this.threadCount;
+    }
+}
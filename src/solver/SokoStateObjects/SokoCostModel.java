@@ -0,0 +1,192 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 17:02:51
+ * @ Modified time: 2026-10-17 17:02:51
+ * @ Description:
+ *
+ * The weights, biases and inversions that states use to work out their cost (see SokoState.getCost).
+ * These used to be constants; keeping them here means they can be tuned without recompiling,
+ * and changed while searching (see SokoSolver and its anytime mode).
+ * The defaults are the values the constants had.
+ */
+
+package solver.SokoStateObjects;
+
+public class SokoCostModel {
+
+    // How much each part of the history counts
+    private float moveCountWeight = 0.5f;
+    private float crateMoveCountWeight = 0.35f;
+    private float turnCountWeight = 0.25f;
+
+    // Adjusts how much each heuristic influences cost evaluation
+    // 0.0 means not at all and 1.0 means it contributes a lot
+    private float solutionWeight = 1.0f;
+    private float goodCountWeight = 1.0f;
+    private float distanceWeight = 0.05f;
+
+    // How much the pushes left count against the history, with a matching estimate
+    // Higher finds solutions sooner; 1.0 is closest to a plain A*
+    private float matchingWeight = 3.0f;
+
+    private int solutionBias = 0;
+    private int goodCountBias = 10;
+    private int distanceBias = 0;
+
+    // These determine whether or not their effects on the heuristic value are inverted or not
+    // By default good crates are inverted because more of them means a smaller cost value
+    private boolean isSolutionInverted = false;
+    private boolean isGoodCountInverted = true;
+    private boolean isDistanceInverted = false;
+
+    /**
+     * Creates a cost model with the default values.
+     */
+    public SokoCostModel() {
+    }
+
+    /**
+     * Creates a copy of a cost model.
+     *
+     * @param   model   The model to copy.
+     */
+    public SokoCostModel(SokoCostModel model) {
+        this.moveCountWeight = model.moveCountWeight;
+        this.crateMoveCountWeight = model.crateMoveCountWeight;
+        this.turnCountWeight = model.turnCountWeight;
+        this.solutionWeight = model.solutionWeight;
+        this.goodCountWeight = model.goodCountWeight;
+        this.distanceWeight = model.distanceWeight;
+        this.matchingWeight = model.matchingWeight;
+        this.solutionBias = model.solutionBias;
+        this.goodCountBias = model.goodCountBias;
+        this.distanceBias = model.distanceBias;
+        this.isSolutionInverted = model.isSolutionInverted;
+        this.isGoodCountInverted = model.isGoodCountInverted;
+        this.isDistanceInverted = model.isDistanceInverted;
+    }
+
+    /**
+     * Sets how much each part of the history counts.
+     *
+     * @param   moveCount       The weight of every move.
+     * @param   crateMoveCount  The weight of every move that moved a crate.
+     * @param   turnCount       The weight of every turn.
+     * @return                  This model.
+     */
+    public SokoCostModel setHistoryWeights(float moveCount, float crateMoveCount, float turnCount) {
+        this.moveCountWeight = moveCount;
+        this.crateMoveCountWeight = crateMoveCount;
+        this.turnCountWeight = turnCount;
+        return this;
+    }
+
+    /**
+     * Sets the weights of the three heuristics.
+     *
+     * @param   solution    The weight of the history.
+     * @param   goodCount   The weight of the crates on goals.
+     * @param   distance    The weight of the distance between the crates and the goals.
+     * @return              This model.
+     */
+    public SokoCostModel setHeuristicWeights(float solution, float goodCount, float distance) {
+        this.solutionWeight = solution;
+        this.goodCountWeight = goodCount;
+        this.distanceWeight = distance;
+        return this;
+    }
+
+    /**
+     * Sets the biases of the three heuristics.
+     *
+     * @param   solution    The bias of the history.
+     * @param   goodCount   The bias of the crates on goals.
+     * @param   distance    The bias of the distance between the crates and the goals.
+     * @return              This model.
+     */
+    public SokoCostModel setHeuristicBiases(int solution, int goodCount, int distance) {
+        this.solutionBias = solution;
+        this.goodCountBias = goodCount;
+        this.distanceBias = distance;
+        return this;
+    }
+
+    /**
+     * Sets which of the three heuristics are inverted.
+     *
+     * @param   solution    Whether or not to invert the history.
+     * @param   goodCount   Whether or not to invert the crates on goals.
+     * @param   distance    Whether or not to invert the distance between the crates and the goals.
+     * @return              This model.
+     */
+    public SokoCostModel setHeuristicInversions(boolean solution, boolean goodCount, boolean distance) {
+        this.isSolutionInverted = solution;
+        this.isGoodCountInverted = goodCount;
+        this.isDistanceInverted = distance;
+        return this;
+    }
+
+    /**
+     * Sets how much the pushes left count, with a matching estimate.
+     * States that already computed their cost keep it (see SokoState.clearCost).
+     *
+     * @param   matchingWeight  The weight of the estimate.
+     * @return                  This model.
+     */
+    public SokoCostModel setMatchingWeight(float matchingWeight) {
+        this.matchingWeight = matchingWeight;
+        return this;
+    }
+
+    public float getMoveCountWeight() {
+        return this.moveCountWeight;
+    }
+
+    public float getCrateMoveCountWeight() {
+        return this.crateMoveCountWeight;
+    }
+
+    public float getTurnCountWeight() {
+        return this.turnCountWeight;
+    }
+
+    public float getSolutionWeight() {
+        return this.solutionWeight;
+    }
+
+    public float getGoodCountWeight() {
+        return this.goodCountWeight;
+    }
+
+    public float getDistanceWeight() {
+        return this.distanceWeight;
+    }
+
+    public float getMatchingWeight() {
+        return this.matchingWeight;
+    }
+
+    public int getSolutionBias() {
+        return this.solutionBias;
+    }
+
+    public int getGoodCountBias() {
+        return this.goodCountBias;
+    }
+
+    public int getDistanceBias() {
+        return this.distanceBias;
+    }
+
+    public boolean isSolutionInverted() {
+        return this.isSolutionInverted;
+    }
+
+    public boolean isGoodCountInverted() {
+        return this.isGoodCountInverted;
+    }
+
+    public boolean isDistanceInverted() {
+        return this.isDistanceInverted;
+    }
+}
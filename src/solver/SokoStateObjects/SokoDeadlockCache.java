@@ -0,0 +1,237 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 19:58:31
+ * @ Modified time: 2026-10-17 19:58:31
+ * @ Description:
+ *
+ * Deadlocks learned while searching.
+ * After a push, the pushed crate and the few crates packed around it are taken on their own, with the
+ * player where it is and every goal still open, and searched in isolation. If even those can't all get
+ * to goals, no state with them (and the player in the same area) can be solved, however the rest of
+ * the crates are placed. The answer is kept, by the hash of the crates and the area of the player,
+ * so the next state that runs into the same group is settled with a lookup.
+ *
+ * The cache is bounded; the least recently used answers are dropped first.
+ * Searches in isolation are bounded too; one that runs out proves nothing, so the group is let through.
+ * They also give up past the solver's deadline, or once the thread is interrupted, so a push with many
+ * groups to check can't hold the solver up long after it should have stopped.
+ */
+
+package solver.SokoStateObjects;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+
+import solver.utils.LongHashSet;
+
+public class SokoDeadlockCache {
+
+    // The most crates taken around a push; more and the searches stop being small
+    private static final int MAX_GROUP_SIZE = 4;
+
+    // How many states a search in isolation may expand before giving up
+    private static final int SEARCH_LIMIT = 500;
+
+    // The map to search on
+    private SokoMap map;
+
+    // The neighbors a crate can be packed against, diagonals included
+    private int[] neighbors;
+
+    // Whether or not each group was a deadlock, by the hash of the group and the area of the player
+    // Kept in access order, so the eldest entry is the least recently used
+    private Map<Long, Boolean> results;
+
+    // When searches in isolation have to give up, as in System.nanoTime, or 0 for never
+    private long deadlineNanos;
+
+    // How often a lookup was enough, and how many groups turned out to be deadlocks
+    private int hits;
+    private int deadlocks;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param   map         The map to search on.
+     * @param   capacity    How many groups to remember.
+     */
+    public SokoDeadlockCache(SokoMap map, int capacity) {
+        this.map = map;
+        this.neighbors = new int[] {
+            map.getNorth(),
+            map.getSouth(),
+            map.getEast(),
+            map.getWest(),
+            map.getNorth() + map.getEast(),
+            map.getNorth() + map.getWest(),
+            map.getSouth() + map.getEast(),
+            map.getSouth() + map.getWest(),
+        };
+        this.results = new LinkedHashMap<Long, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return this.size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Checks whether or not the crates around the last push can never all get to goals.
+     *
+     * @param   state   A state that was just created by a push.
+     * @return          Whether or not the state can't be solved.
+     */
+    public boolean isDeadlocked(SokoState state) {
+
+        // Nothing was pushed
+        char move = state.getLastMove();
+        if(move == '!')
+            return false;
+
+        int crate = state.getPlayer() + this.map.getDirection(move);
+        SokoLayout layout = state.getLayout();
+        if(!layout.hasCrate(crate))
+            return false;
+
+        // A lone crate is already covered by the push distances, and all of them is the whole puzzle
+        int[] group = this.getGroup(crate, layout);
+        if(group.length < 2 || group.length >= layout.getCrateCount())
+            return false;
+
+        // Known already
+        SokoState groupState = SokoStateFactory.createInitialState(state.getPlayer(), group, this.map);
+        long key = groupState.getNormalizedHash(this.map);
+        Boolean result = this.results.get(key);
+        if(result != null) {
+            this.hits++;
+            return result;
+        }
+
+        boolean isDeadlocked = !this.canSolve(groupState);
+        if(isDeadlocked)
+            this.deadlocks++;
+
+        this.results.put(key, isDeadlocked);
+        return isDeadlocked;
+    }
+
+    /**
+     * Returns the crate and the crates packed around it, nearest first.
+     *
+     * @param   crate   The location of the crate.
+     * @param   layout  The crates.
+     * @return          The locations of the group.
+     */
+    private int[] getGroup(int crate, SokoLayout layout) {
+        int[] group = new int[MAX_GROUP_SIZE];
+        int size = 0;
+        group[size++] = crate;
+
+        // Spread out from the crate until the group is full
+        for(int i = 0; i < size && size < MAX_GROUP_SIZE; i++) {
+            for(int neighbor : this.neighbors) {
+                int location = group[i] + neighbor;
+                if(!layout.hasCrate(location) || this.contains(group, size, location))
+                    continue;
+
+                group[size++] = location;
+                if(size == MAX_GROUP_SIZE)
+                    break;
+            }
+        }
+
+        return Arrays.copyOf(group, size);
+    }
+
+    /**
+     * Whether or not a location is among the first few of a group.
+     *
+     * @param   group       The group.
+     * @param   size        How many of the group to look at.
+     * @param   location    The location to look for.
+     * @return              Yes or no.
+     */
+    private boolean contains(int[] group, int size, int location) {
+        for(int i = 0; i < size; i++)
+            if(group[i] == location)
+                return true;
+
+        return false;
+    }
+
+    /**
+     * Searches a group on its own, until its crates are all on goals or the search runs out.
+     *
+     * @param   initialState    The group, with the player.
+     * @return                  Whether or not it's solvable, or might be.
+     */
+    private boolean canSolve(SokoState initialState) {
+        Queue<SokoState> states = new SokoStateBucketQueue(this.map);
+        LongHashSet visitedStates = new LongHashSet(SEARCH_LIMIT);
+        states.add(initialState);
+
+        for(int expanded = 0; !states.isEmpty(); expanded++) {
+
+            // Too big to tell, or no time left to tell
+            if(expanded >= SEARCH_LIMIT || this.shouldStop())
+                return true;
+
+            SokoState state = states.poll();
+            if(!visitedStates.add(state.getNormalizedHash(this.map)))
+                continue;
+
+            SokoState.StateStatus status = state.getStatus(this.map);
+            if(status == SokoState.StateStatus.WON)
+                return true;
+            if(status == SokoState.StateStatus.LOST)
+                continue;
+
+            for(SokoState newState : SokoStateFactory.createNextPushStates(state, this.map))
+                if(!visitedStates.contains(newState.getNormalizedHash(this.map)))
+                    states.add(newState);
+        }
+
+        return false;
+    }
+
+    /**
+     * Whether or not searches in isolation have to give up now.
+     *
+     * @return  Yes or no.
+     */
+    private boolean shouldStop() {
+        if(Thread.currentThread().isInterrupted())
+            return true;
+
+        return this.deadlineNanos != 0 && System.nanoTime() - this.deadlineNanos > 0;
+    }
+
+    /**
+     * Sets when searches in isolation have to give up.
+     *
+     * @param   deadlineNanos   When to stop, as in System.nanoTime, or 0 for never.
+     */
+    public void setDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Returns how many times a state was settled by a lookup.
+     *
+     * @return  The number of hits.
+     */
+    public int getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Returns how many groups were found to be deadlocks.
+     *
+     * @return  The number of deadlocks learned.
+     */
+    public int getDeadlocks() {
+        return this.deadlocks;
+    }
+}
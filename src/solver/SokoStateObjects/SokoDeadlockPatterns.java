@@ -0,0 +1,470 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 19:20:45
+ * @ Modified time: 2026-10-17 19:20:45
+ * @ Description:
+ *
+ * A table of small windows of walls and crates that can never be cleared, whatever is around them.
+ * Each window (2x2, 3x2, 2x3 or 3x3) is read as a base 3 number, one digit per cell, and the table
+ * has one bit per number. Windows with a goal in them are never looked up, so every crate in one has
+ * to leave it at some point; a window is a deadlock when, with open floor all around it and the player
+ * starting anywhere, its crates can't all be pushed out.
+ *
+ * The table is built once by trying every window (see main) and kept in a file, which is mapped when
+ * it's first needed. The file is found on the classpath, or wherever soko.deadlockPatterns points.
+ * If the classpath has none, or a stale one, the table is built in memory instead.
+ */
+
+package solver.SokoStateObjects;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+
+public class SokoDeadlockPatterns {
+
+    // The windows, as width and height
+    public static final int[][] SHAPES = {
+        { 2, 2 },
+        { 3, 2 },
+        { 2, 3 },
+        { 3, 3 },
+    };
+
+    // The digit of each cell in a window's number
+    // The top left cell is the lowest digit, then the rest of the row, then the next rows
+    public static final int EMPTY = 0;
+    public static final int WALL = 1;
+    public static final int CRATE = 2;
+
+    // The file starts with this, then the number of shapes, then each shape's width, height and bits
+    private static final int MAGIC = 0x534F4B44;
+
+    // Where the table is looked for on the classpath; the run scripts put data/ on it
+    private static final String RESOURCE = "/deadlock-patterns.bin";
+
+    // Set this to a file to load the table from there instead
+    private static final String FILE_PROPERTY = "soko.deadlockPatterns";
+
+    // Where main writes the table if not told otherwise
+    private static final Path DEFAULT_FILE = Paths.get("data", "deadlock-patterns.bin");
+
+    // Loaded once and shared by every map
+    private static SokoDeadlockPatterns instance;
+
+    // The whole file, and where each shape's bits start in it
+    private ByteBuffer table;
+    private int[] offsets;
+
+    /**
+     * Wraps a table in the file format.
+     *
+     * @param   table   The contents of the file.
+     */
+    private SokoDeadlockPatterns(ByteBuffer table) {
+        this.table = table;
+        this.offsets = new int[SHAPES.length];
+
+        // The bits of each shape come right after its width and height
+        int offset = Integer.BYTES + 1;
+        for(int i = 0; i < SHAPES.length; i++) {
+            this.offsets[i] = offset + 2;
+            offset += 2 + getByteCount(i);
+        }
+    }
+
+    /**
+     * Returns the table every map uses, loading it the first time.
+     * The file named by the soko.deadlockPatterns property is used if set; otherwise the table
+     * is looked for on the classpath.
+     *
+     * @return  The table.
+     */
+    public static synchronized SokoDeadlockPatterns getInstance() {
+        if(instance == null) {
+            String file = System.getProperty(FILE_PROPERTY);
+            instance = file != null
+                ? load(Paths.get(file))
+                : loadResource();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Maps a table file.
+     *
+     * @param   file    Where the table is kept.
+     * @return          The table.
+     */
+    public static SokoDeadlockPatterns load(Path file) {
+        ByteBuffer table;
+        try {
+            table = map(file);
+        } catch(IOException e) {
+            throw new UncheckedIOException("Could not load the deadlock patterns from " + file, e);
+        }
+
+        if(!isValid(table))
+            throw new IllegalStateException(file + " is not a deadlock pattern table for these shapes; rebuild it with SokoDeadlockPatterns");
+
+        return new SokoDeadlockPatterns(table);
+    }
+
+    /**
+     * Loads the table from the classpath, mapping it if it's a plain file.
+     * If it's missing or stale, the table is built in memory instead, with a warning; the file is
+     * only ever written by main.
+     *
+     * @return  The table.
+     */
+    private static SokoDeadlockPatterns loadResource() {
+        URL resource = SokoDeadlockPatterns.class.getResource(RESOURCE);
+        if(resource == null)
+            return build(RESOURCE + " is not on the classpath");
+
+        ByteBuffer table;
+        try {
+            if(resource.getProtocol().equals("file")) {
+                table = map(Paths.get(resource.toURI()));
+            } else {
+                try(InputStream stream = resource.openStream()) {
+                    table = ByteBuffer.wrap(stream.readAllBytes());
+                }
+            }
+        } catch(IOException e) {
+            throw new UncheckedIOException("Could not load the deadlock patterns from " + resource, e);
+        } catch(URISyntaxException e) {
+            throw new IllegalStateException("Could not load the deadlock patterns from " + resource, e);
+        }
+
+        if(!isValid(table))
+            return build(resource + " is stale");
+
+        return new SokoDeadlockPatterns(table);
+    }
+
+    /**
+     * Maps a file, read only.
+     *
+     * @param   file    The file.
+     * @return          Its contents.
+     */
+    private static ByteBuffer map(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Builds the table in memory, when there's no usable file.
+     *
+     * @param   reason  Why the file couldn't be used.
+     * @return          The table.
+     */
+    private static SokoDeadlockPatterns build(String reason) {
+        System.err.println("Warning: " + reason + "; building the deadlock patterns in memory. "
+            + "Run solver.SokoStateObjects.SokoDeadlockPatterns to write " + DEFAULT_FILE + ".");
+
+        return new SokoDeadlockPatterns(ByteBuffer.wrap(generate()));
+    }
+
+    /**
+     * Whether or not a table has the same shapes as these, in the same order.
+     *
+     * @param   table   The contents of the file.
+     * @return          Yes or no.
+     */
+    private static boolean isValid(ByteBuffer table) {
+        int size = Integer.BYTES + 1;
+        for(int i = 0; i < SHAPES.length; i++)
+            size += 2 + getByteCount(i);
+
+        if(table.capacity() != size || table.order(ByteOrder.BIG_ENDIAN).getInt(0) != MAGIC)
+            return false;
+        if(table.get(Integer.BYTES) != SHAPES.length)
+            return false;
+
+        int offset = Integer.BYTES + 1;
+        for(int i = 0; i < SHAPES.length; i++) {
+            if(table.get(offset) != SHAPES[i][0] || table.get(offset + 1) != SHAPES[i][1])
+                return false;
+
+            offset += 2 + getByteCount(i);
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns how many windows a shape has.
+     *
+     * @param   shape   The index of the shape in SHAPES.
+     * @return          3 to the power of its number of cells.
+     */
+    public static int getWindowCount(int shape) {
+        int count = 1;
+        for(int i = 0; i < SHAPES[shape][0] * SHAPES[shape][1]; i++)
+            count *= 3;
+
+        return count;
+    }
+
+    /**
+     * Returns how many bytes the bits of a shape take.
+     *
+     * @param   shape   The index of the shape in SHAPES.
+     * @return          The number of bytes.
+     */
+    private static int getByteCount(int shape) {
+        return (getWindowCount(shape) + 7) >>> 3;
+    }
+
+    /**
+     * Checks whether or not a window is a deadlock.
+     *
+     * @param   shape   The index of the shape in SHAPES.
+     * @param   window  The number of the window.
+     * @return          Whether or not its crates can never all leave it.
+     */
+    public boolean isDeadlock(int shape, int window) {
+        return (this.table.get(this.offsets[shape] + (window >>> 3)) & (1 << (window & 7))) != 0;
+    }
+
+    /**
+     * Builds the table by trying every window of every shape.
+     *
+     * @return  The contents of the file.
+     */
+    public static byte[] generate() {
+        int size = Integer.BYTES + 1;
+        for(int i = 0; i < SHAPES.length; i++)
+            size += 2 + getByteCount(i);
+
+        ByteBuffer table = ByteBuffer.allocate(size);
+        table.putInt(MAGIC);
+        table.put((byte) SHAPES.length);
+
+        for(int i = 0; i < SHAPES.length; i++) {
+            int width = SHAPES[i][0];
+            int height = SHAPES[i][1];
+            byte[] bits = new byte[getByteCount(i)];
+
+            // Read each number as its cells, then try it
+            int[] cells = new int[width * height];
+            for(int window = 0; window < getWindowCount(i); window++) {
+                for(int k = 0, digits = window; k < cells.length; k++, digits /= 3)
+                    cells[k] = digits % 3;
+
+                if(isDeadlock(width, height, cells))
+                    bits[window >>> 3] |= 1 << (window & 7);
+            }
+
+            table.put((byte) width);
+            table.put((byte) height);
+            table.put(bits);
+        }
+
+        return table.array();
+    }
+
+    /**
+     * Checks whether or not the crates of a window can't all be pushed out of it.
+     * Everything outside the window is open floor, and the player may start in any area.
+     *
+     * @param   width   The width of the window.
+     * @param   height  The height of the window.
+     * @param   cells   What's in each cell, row by row.
+     * @return          Whether or not it's a deadlock.
+     */
+    private static boolean isDeadlock(int width, int height, int[] cells) {
+        int walls = 0;
+        int crates = 0;
+        for(int k = 0; k < cells.length; k++) {
+            if(cells[k] == WALL)
+                walls |= 1 << k;
+            if(cells[k] == CRATE)
+                crates |= 1 << k;
+        }
+
+        // Nothing to clear
+        if(crates == 0)
+            return false;
+
+        // Try every area the player could start in; the outside counts as one more cell
+        int outside = cells.length;
+        int tried = 0;
+        for(int start = 0; start <= outside; start++) {
+            if(start < outside && ((walls | crates) & (1 << start)) != 0)
+                continue;
+            if((tried & (1 << start)) != 0)
+                continue;
+
+            int area = getPlayerArea(width, height, walls, crates, start);
+            tried |= area;
+
+            if(canClear(width, height, walls, crates, area))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Searches every push from a starting point, until the window is empty.
+     *
+     * @param   width   The width of the window.
+     * @param   height  The height of the window.
+     * @param   walls   The walls, as one bit per cell.
+     * @param   crates  The crates, as one bit per cell.
+     * @param   area    Where the player can walk to, with the outside as the last bit.
+     * @return          Whether or not every crate can be pushed out.
+     */
+    private static boolean canClear(int width, int height, int walls, int crates, int area) {
+        int outside = width * height;
+
+        // Each state is the crates, and the first cell of the player's area
+        Set<Integer> visited = new HashSet<>();
+        Queue<int[]> queue = new ArrayDeque<>();
+        visited.add(crates << 4 | Integer.numberOfTrailingZeros(area));
+        queue.add(new int[] { crates, area });
+
+        while(!queue.isEmpty()) {
+            int[] state = queue.poll();
+
+            for(int crate = 0; crate < outside; crate++) {
+                if((state[0] & (1 << crate)) == 0)
+                    continue;
+
+                int x = crate % width;
+                int y = crate / width;
+
+                // Stand on one side, push to the other
+                for(int[] direction : new int[][] { { 0, -1 }, { 0, 1 }, { 1, 0 }, { -1, 0 } }) {
+                    int from = getCell(width, height, x - direction[0], y - direction[1]);
+                    int to = getCell(width, height, x + direction[0], y + direction[1]);
+
+                    if((state[1] & (1 << from)) == 0)
+                        continue;
+
+                    // Out of the window, the crate is as good as gone
+                    int next = state[0] & ~(1 << crate);
+                    if(to != outside) {
+                        if(((walls | state[0]) & (1 << to)) != 0)
+                            continue;
+
+                        next |= 1 << to;
+                    }
+
+                    if(next == 0)
+                        return true;
+
+                    int nextArea = getPlayerArea(width, height, walls, next, crate);
+                    if(visited.add(next << 4 | Integer.numberOfTrailingZeros(nextArea)))
+                        queue.add(new int[] { next, nextArea });
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns where the player can walk to.
+     *
+     * @param   width   The width of the window.
+     * @param   height  The height of the window.
+     * @param   walls   The walls, as one bit per cell.
+     * @param   crates  The crates, as one bit per cell.
+     * @param   start   Where the player is, or the outside.
+     * @return          The cells the player can reach, with the outside as the last bit.
+     */
+    private static int getPlayerArea(int width, int height, int walls, int crates, int start) {
+        int outside = width * height;
+        int area = 1 << start;
+
+        Queue<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+
+        while(!queue.isEmpty()) {
+            int cell = queue.poll();
+
+            for(int next = 0; next <= outside; next++) {
+                if((area & (1 << next)) != 0 || !isAdjacent(width, height, cell, next))
+                    continue;
+                if(next != outside && ((walls | crates) & (1 << next)) != 0)
+                    continue;
+
+                area |= 1 << next;
+                queue.add(next);
+            }
+        }
+
+        return area;
+    }
+
+    /**
+     * Whether or not two cells share a side; cells on the edge of the window touch the outside.
+     *
+     * @param   width   The width of the window.
+     * @param   height  The height of the window.
+     * @param   a       A cell, or the outside.
+     * @param   b       Another cell, or the outside.
+     * @return          Yes or no.
+     */
+    private static boolean isAdjacent(int width, int height, int a, int b) {
+        int outside = width * height;
+        if(a == b)
+            return false;
+
+        // Only edge cells touch the outside
+        if(a == outside || b == outside) {
+            int cell = Math.min(a, b);
+            int x = cell % width;
+            int y = cell / width;
+
+            return x == 0 || y == 0 || x == width - 1 || y == height - 1;
+        }
+
+        return Math.abs(a % width - b % width) + Math.abs(a / width - b / width) == 1;
+    }
+
+    /**
+     * Returns the index of a cell.
+     *
+     * @param   width   The width of the window.
+     * @param   height  The height of the window.
+     * @param   x       The x-coordinate in the window.
+     * @param   y       The y-coordinate in the window.
+     * @return          The index, or the outside if it's not in the window.
+     */
+    private static int getCell(int width, int height, int x, int y) {
+        if(x < 0 || y < 0 || x >= width || y >= height)
+            return width * height;
+
+        return y * width + x;
+    }
+
+    /**
+     * Builds the table and writes it to a file.
+     *
+     * @param   args    Where to write it; defaults to data/deadlock-patterns.bin.
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = args.length > 0 ? Paths.get(args[0]) : DEFAULT_FILE;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.write(file, generate());
+    }
+}
@@ -0,0 +1,441 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 16:12:40
+ * @ Modified time: 2026-10-17 16:12:40
+ * @ Description:
+ *
+ * A room holding every goal, closed off from the rest of the map but for a single entrance cell.
+ * Such rooms have to be filled in the right order, or the crates already in there block the rest.
+ * That order is worked out once, backwards: starting with the room full, crates are pulled out
+ * through the entrance one at a time. Filling the room is then the same thing played forwards,
+ * and a crate that reaches the entrance can be taken straight to the next goal (see SokoStateFactory).
+ * Working the order out is bounded; a room that takes too long to order is treated as no room at all.
+ */
+
+package solver.SokoStateObjects;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+
+public class SokoGoalRoom {
+
+    // Past this many goals, the orders to try get out of hand (and stop fitting in a long)
+    private static final int MAX_GOALS = 48;
+
+    // How many cells finding the room and working out its order may look at, all told
+    // Each entrance tried and each pull step floods the whole map once, so that's what they cost
+    private static final long SEARCH_BUDGET = 1L << 24;
+
+    // The entrance, and the cells behind it
+    private int entrance;
+    private boolean[] roomCells;
+
+    // The goals in the order they're filled, and the pushes that take a crate
+    // from the entrance to each, given the ones before it are filled
+    private int[] order;
+    private int[][] pushes;
+
+    // Open cells of the map, by location, and the directions between them
+    private boolean[] openCells;
+    private int[] directions;
+
+    // Cells left to look at, after finding the room, for working out the order
+    private long budget;
+
+    /**
+     * Creates a room; see find.
+     *
+     * @param   entrance    The entrance cell.
+     * @param   roomCells   The cells behind the entrance.
+     * @param   openCells   The open cells of the map.
+     * @param   directions  The directions of the map.
+     * @param   budget      How many cells working out the order may look at.
+     */
+    private SokoGoalRoom(int entrance, boolean[] roomCells, boolean[] openCells, int[] directions, long budget) {
+        this.entrance = entrance;
+        this.roomCells = roomCells;
+        this.openCells = openCells;
+        this.directions = directions;
+        this.budget = budget;
+    }
+
+    /**
+     * Looks for a goal room and works out how to fill it.
+     * Only rooms with no crates and no player inside to begin with are used.
+     * On maps too big to look through within the budget, there's no room.
+     *
+     * @param   map         The map to look in; its walls and goals must be ready.
+     * @param   charMap     The contents of the map, for the crates and the player.
+     * @return              The room, or null if there's none (or no way to fill it).
+     */
+    static SokoGoalRoom find(SokoMap map, char[][] charMap) {
+        int[] goals = map.getGoalLocations();
+        if(goals.length == 0 || goals.length > MAX_GOALS)
+            return null;
+
+        // The open cells, and where the crates and the player start
+        boolean[] openCells = new boolean[map.getCellCount()];
+        List<Integer> crates = new ArrayList<>();
+        int player = -1;
+        for(int y = 0; y < charMap.length; y++) {
+            for(int x = 0; x < charMap[y].length; x++) {
+                int location = map.encode(x, y);
+                openCells[location] = map.getWalls()[y][x];
+
+                if(charMap[y][x] == '$' || charMap[y][x] == '*')
+                    crates.add(location);
+                if(charMap[y][x] == '@' || charMap[y][x] == '+')
+                    player = location;
+            }
+        }
+
+        // Block each cell in turn; an entrance cuts every goal off from the player
+        // The smallest such room is the one we want
+        boolean[] bestCells = null;
+        int bestEntrance = -1;
+        int bestSize = Integer.MAX_VALUE;
+        long budget = SEARCH_BUDGET;
+        for(int entrance = 0; entrance < openCells.length; entrance++) {
+            if(!openCells[entrance] || entrance == player || map.hasGoal(entrance))
+                continue;
+
+            budget -= openCells.length;
+            if(budget < 0)
+                return null;
+
+            boolean[] roomCells = flood(goals[0], entrance, openCells, map.getDirections());
+            int size = 0;
+            for(boolean isRoomCell : roomCells)
+                if(isRoomCell)
+                    size++;
+
+            // Not closed off, or doesn't hold everything, or not the smallest
+            if(player < 0 || roomCells[player] || size >= bestSize)
+                continue;
+            if(Arrays.stream(goals).anyMatch(goal -> !roomCells[goal]))
+                continue;
+            if(crates.stream().anyMatch(crate -> roomCells[crate]))
+                continue;
+
+            bestCells = roomCells;
+            bestEntrance = entrance;
+            bestSize = size;
+        }
+
+        // No room
+        if(bestCells == null)
+            return null;
+
+        SokoGoalRoom room = new SokoGoalRoom(bestEntrance, bestCells, openCells, map.getDirections(), budget);
+        return room.generateOrder(goals) ? room : null;
+    }
+
+    /**
+     * Finds the cells connected to a cell, with another cell blocked.
+     *
+     * @param   start       Where to start.
+     * @param   blocked     The cell to treat as a wall.
+     * @param   openCells   The open cells of the map.
+     * @param   directions  The directions of the map.
+     * @return              Which cells were reached.
+     */
+    private static boolean[] flood(int start, int blocked, boolean[] openCells, int[] directions) {
+        boolean[] reached = new boolean[openCells.length];
+        int[] queue = new int[openCells.length];
+        int head = 0, tail = 0;
+
+        reached[start] = true;
+        queue[tail++] = start;
+        while(head < tail) {
+            int location = queue[head++];
+
+            for(int direction : directions) {
+                int next = location + direction;
+
+                if(next < 0 || next >= openCells.length || !openCells[next] || next == blocked || reached[next])
+                    continue;
+
+                reached[next] = true;
+                queue[tail++] = next;
+            }
+        }
+
+        return reached;
+    }
+
+    /**
+     * Works out the order to fill the goals in, by emptying the full room backwards.
+     * Every goal set that couldn't be emptied is remembered, so no order is tried twice.
+     *
+     * @param   goals   The goals, all in the room.
+     * @return          Whether or not there's an order that fills every goal, found within the budget.
+     */
+    private boolean generateOrder(int[] goals) {
+        this.order = new int[goals.length];
+        this.pushes = new int[goals.length][];
+
+        return this.emptyRoom(goals, (1L << goals.length) - 1, goals.length, new HashSet<>());
+    }
+
+    /**
+     * Pulls the crates out of the room one at a time, filling in the order from the back.
+     *
+     * @param   goals       The goals.
+     * @param   filled      Which goals still have crates, as bits.
+     * @param   count       How many goals still have crates.
+     * @param   deadEnds    Goal sets that couldn't be emptied.
+     * @return              Whether or not the room could be emptied.
+     */
+    private boolean emptyRoom(int[] goals, long filled, int count, Set<Long> deadEnds) {
+        if(count == 0)
+            return true;
+
+        // Known to be stuck, or out of budget; either way, give up on this branch
+        if(deadEnds.contains(filled) || this.budget < 0)
+            return false;
+
+        // The crates that stay put are walls
+        boolean[] blocked = new boolean[this.openCells.length];
+        for(int i = 0; i < goals.length; i++)
+            if((filled & (1L << i)) != 0)
+                blocked[goals[i]] = true;
+
+        // Try each crate; the last crate out is the first one in
+        for(int i = 0; i < goals.length; i++) {
+            if((filled & (1L << i)) == 0)
+                continue;
+
+            blocked[goals[i]] = false;
+            int[] pushes = this.getPushesFromEntrance(goals[i], blocked);
+            blocked[goals[i]] = true;
+
+            if(pushes == null)
+                continue;
+
+            this.order[count - 1] = goals[i];
+            this.pushes[count - 1] = pushes;
+            if(this.emptyRoom(goals, filled & ~(1L << i), count - 1, deadEnds))
+                return true;
+        }
+
+        // Only a finished search proves a dead end
+        if(this.budget >= 0)
+            deadEnds.add(filled);
+
+        return false;
+    }
+
+    /**
+     * Pulls a lone crate from a goal out to the entrance, breadth first.
+     * The player stays in the room until the last pull, which takes it out through the entrance.
+     * Each step is a crate location and the area the player is in, named by its smallest cell;
+     * as a single number, it's a long, since the number of cells squared can pass an int.
+     *
+     * @param   goal        Where the crate is.
+     * @param   blocked     The crates that stay put.
+     * @return              The pushes that take the crate from the entrance back to the goal, or null.
+     */
+    private int[] getPushesFromEntrance(int goal, boolean[] blocked) {
+        long cellCount = this.openCells.length;
+        Map<Long, Long> previous = new HashMap<>();
+        Queue<Long> queue = new ArrayDeque<>();
+
+        // The player could be next to the crate on any side, as long as it can get back out
+        // Otherwise it would be stuck in the room once the crate is in
+        for(int direction : this.directions) {
+            int player = goal + direction;
+            if(!this.isRoomFree(player, blocked) || !this.getWalkable(player, goal, blocked)[this.entrance])
+                continue;
+
+            long step = goal * cellCount + this.getArea(player, goal, blocked);
+            if(previous.putIfAbsent(step, -1L) == null)
+                queue.add(step);
+        }
+
+        while(!queue.isEmpty()) {
+
+            // Out of budget; no telling
+            this.budget -= cellCount;
+            if(this.budget < 0)
+                return null;
+
+            long step = queue.poll();
+            int crate = (int) (step / cellCount);
+            int player = (int) (step % cellCount);
+
+            // Out the entrance, with the player out too; read the pulls back as pushes
+            if(crate == this.entrance && !this.isRoomFree(player, blocked))
+                return this.readPushes(step, previous, cellCount);
+
+            // Pull from any side the player can walk to
+            boolean[] walkable = this.getWalkable(player, crate, blocked);
+            for(int direction : this.directions) {
+                int pullFrom = crate + direction;
+                int stepTo = pullFrom + direction;
+
+                if(pullFrom < 0 || pullFrom >= cellCount || !walkable[pullFrom])
+                    continue;
+
+                // The player steps back; only out of the room if the crate lands on the entrance
+                boolean isLeaving = pullFrom == this.entrance &&
+                    stepTo >= 0 && stepTo < cellCount && this.openCells[stepTo] && !this.roomCells[stepTo];
+                if(!isLeaving && !this.isRoomFree(stepTo, blocked))
+                    continue;
+
+                // Outside, the player is done walking
+                int area = isLeaving ? stepTo : this.getArea(stepTo, pullFrom, blocked);
+                long next = pullFrom * cellCount + area;
+                if(previous.putIfAbsent(next, step) == null)
+                    queue.add(next);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads the pulls that led to a step back as the pushes that undo them.
+     *
+     * @param   step        The last step.
+     * @param   previous    The step each step came from.
+     * @param   cellCount   The number of locations.
+     * @return              The push directions, first to last.
+     */
+    private int[] readPushes(long step, Map<Long, Long> previous, long cellCount) {
+        List<Integer> pushes = new ArrayList<>();
+
+        // The last pull is the first push, and so on
+        for(long next = step; previous.get(next) >= 0; next = previous.get(next))
+            pushes.add((int) (previous.get(next) / cellCount - next / cellCount));
+
+        return pushes
+            .stream()
+            .mapToInt(i -> i)
+            .toArray();
+    }
+
+    /**
+     * Names the area the player can walk in by its smallest cell.
+     *
+     * @param   player      Where the player is.
+     * @param   crate       Where the crate is.
+     * @param   blocked     The crates that stay put.
+     * @return              The smallest cell the player can get to.
+     */
+    private int getArea(int player, int crate, boolean[] blocked) {
+        boolean[] walkable = this.getWalkable(player, crate, blocked);
+        for(int location = 0; location < walkable.length; location++)
+            if(walkable[location])
+                return location;
+
+        return player;
+    }
+
+    /**
+     * Finds where the player can walk in the room (and the entrance) with a crate in the way.
+     *
+     * @param   player      Where the player is.
+     * @param   crate       Where the crate is.
+     * @param   blocked     The crates that stay put.
+     * @return              Which cells the player can get to.
+     */
+    private boolean[] getWalkable(int player, int crate, boolean[] blocked) {
+        boolean[] walkable = new boolean[this.openCells.length];
+        int[] queue = new int[this.openCells.length];
+        int head = 0, tail = 0;
+
+        walkable[player] = true;
+        queue[tail++] = player;
+        while(head < tail) {
+            int location = queue[head++];
+
+            for(int direction : this.directions) {
+                int next = location + direction;
+
+                if(next == crate || !this.isRoomFree(next, blocked) || walkable[next])
+                    continue;
+
+                walkable[next] = true;
+                queue[tail++] = next;
+            }
+        }
+
+        return walkable;
+    }
+
+    /**
+     * Whether or not a cell is in the room (or is the entrance) and has nothing on it.
+     *
+     * @param   location    The cell to check.
+     * @param   blocked     The crates that stay put.
+     * @return              Yes or no.
+     */
+    private boolean isRoomFree(int location, boolean[] blocked) {
+        if(location < 0 || location >= this.openCells.length)
+            return false;
+
+        return (this.roomCells[location] || location == this.entrance) && !blocked[location];
+    }
+
+    /**
+     * Returns the entrance of the room.
+     *
+     * @return  The location of the entrance.
+     */
+    public int getEntrance() {
+        return this.entrance;
+    }
+
+    /**
+     * Returns whether or not a cell is behind the entrance.
+     *
+     * @param   location    The cell to check.
+     * @return              Whether or not it's in the room.
+     */
+    public boolean isInRoom(int location) {
+        return location >= 0 && location < this.roomCells.length && this.roomCells[location];
+    }
+
+    /**
+     * Returns how far along the order the room is filled.
+     * The crates in the room have to be exactly the first few in the order, or there's no telling.
+     *
+     * @param   layout  The crates.
+     * @return          How many goals are filled, or -1 if the room isn't filled in order (or is full).
+     */
+    public int getFilledCount(SokoLayout layout) {
+        int count = 0;
+        for(int crate : layout.getCrateLocations())
+            if(this.isInRoom(crate))
+                count++;
+
+        // Every goal is taken
+        if(count >= this.order.length)
+            return -1;
+
+        // The crates in there have to be the first few in the order
+        for(int i = 0; i < count; i++)
+            if(!layout.hasCrate(this.order[i]))
+                return -1;
+
+        return count;
+    }
+
+    /**
+     * Returns the pushes that take a crate from the entrance to a goal.
+     *
+     * @param   index   The index of the goal in the order.
+     * @return          The push directions, first to last.
+     */
+    public int[] getPushes(int index) {
+        return this.pushes[index];
+    }
+}
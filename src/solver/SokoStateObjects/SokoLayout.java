@@ -0,0 +1,453 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 12:20:04
+ * @ Modified time: 2026-10-17 12:20:04
+ * @ Description:
+ *
+ * The placement of the crates, without the player.
+ * Layouts never change once created, so a state and the states where only the player moved
+ * can all point to the same one. Anything derived from the crates alone is computed once per layout.
+ */
+
+package solver.SokoStateObjects;
+
+import java.util.Arrays;
+
+import solver.SokoObjects.SokoCrate;
+import solver.utils.Grid;
+import solver.utils.Matching;
+
+public class SokoLayout {
+
+    // The crates, as one bit per location (see SokoMap.getCellCount)
+    private final long[] crates;
+
+    // The same crates as a sorted array of locations
+    private final int[] locations;
+
+    // Think of the crate centroid as the vector sum of the locations of the crates.
+    // Locations are flat indices, so each axis is summed on its own
+    private final int crateCentroidX;
+    private final int crateCentroidY;
+    private final int goodCrateCount;
+
+    // What a freeze check found (see getFreeze)
+    // Frozen results are ordered, so the worst one can be kept with max
+    private static final int FREEZE_NONE = 0;
+    private static final int FREEZE_ON_GOALS = 1;
+    private static final int FREEZE_OFF_GOAL = 2;
+
+    // Computed the first time they're needed
+    // The neighbors are in the same order as the locations (see SokoCrate for the bit format)
+    // Layouts can be shared between threads (see SokoParallelSearch); the array is volatile so that
+    // whoever sees it also sees its contents, and the rest are single values that are fine to compute twice
+    private volatile byte[] neighbors = null;
+    private SokoState.StateStatus status = null;
+    private int matchingCost = -1;
+
+    /**
+     * Creates a layout from a list of crates.
+     *
+     * @param   crates  The locations of the crates.
+     * @param   map     The map the crates are on.
+     */
+    public SokoLayout(int[] crates, SokoMap map) {
+        this.crates = new long[(map.getCellCount() + 63) >>> 6];
+        this.locations = crates.clone();
+        Arrays.sort(this.locations);
+
+        // Set the bits, the sum and the good crates
+        int crateCentroidX = 0;
+        int crateCentroidY = 0;
+        int goodCrateCount = 0;
+        for(int crate : this.locations) {
+            this.crates[crate >>> 6] |= 1L << crate;
+            crateCentroidX += map.getX(crate);
+            crateCentroidY += map.getY(crate);
+
+            if(map.hasGoal(crate))
+                goodCrateCount++;
+        }
+
+        this.crateCentroidX = crateCentroidX;
+        this.crateCentroidY = crateCentroidY;
+        this.goodCrateCount = goodCrateCount;
+    }
+
+    /**
+     * Creates a layout that differs from another by a single crate.
+     *
+     * @param   layout  The layout to start from.
+     * @param   from    The location of the crate that moved.
+     * @param   to      Where the crate moved to.
+     * @param   map     The map the crates are on.
+     */
+    private SokoLayout(SokoLayout layout, int from, int to, SokoMap map) {
+        this.crates = layout.crates.clone();
+        this.crates[from >>> 6] &= ~(1L << from);
+        this.crates[to >>> 6] |= 1L << to;
+
+        // Swap the location, then slide it back into order
+        this.locations = layout.locations.clone();
+        int i = 0;
+        while(this.locations[i] != from)
+            i++;
+        for(; i > 0 && this.locations[i - 1] > to; i--)
+            this.locations[i] = this.locations[i - 1];
+        for(; i < this.locations.length - 1 && this.locations[i + 1] < to; i++)
+            this.locations[i] = this.locations[i + 1];
+        this.locations[i] = to;
+
+        // Only the moved crate changes these
+        this.crateCentroidX = layout.crateCentroidX - map.getX(from) + map.getX(to);
+        this.crateCentroidY = layout.crateCentroidY - map.getY(from) + map.getY(to);
+        this.goodCrateCount = layout.goodCrateCount
+            - (map.hasGoal(from) ? 1 : 0)
+            + (map.hasGoal(to) ? 1 : 0);
+    }
+
+    /**
+     * Returns the layout after moving one crate.
+     * This layout is left as is.
+     *
+     * @param   from    The location of the crate to move.
+     * @param   to      Where to move it.
+     * @param   map     The map the crates are on.
+     * @return          The new layout.
+     */
+    public SokoLayout moveCrate(int from, int to, SokoMap map) {
+        return new SokoLayout(this, from, to, map);
+    }
+
+    /**
+     * Checks whether or not a crate exists at a certain location.
+     *
+     * @param   location    The location to inspect.
+     * @return              Whether or not crate exists at location.
+     */
+    public boolean hasCrate(int location) {
+
+        // Outside the map
+        if(location < 0 || (location >>> 6) >= this.crates.length)
+            return false;
+
+        return (this.crates[location >>> 6] & (1L << location)) != 0;
+    }
+
+    /**
+     * Returns the crate locations, in increasing order.
+     * The array is shared by every state with this layout, so it must not be modified.
+     *
+     * @return  An array containing the crate locations.
+     */
+    public int[] getCrateLocations() {
+        return this.locations;
+    }
+
+    /**
+     * Returns the number of crates.
+     *
+     * @return  The number of crates.
+     */
+    public int getCrateCount() {
+        return this.locations.length;
+    }
+
+    /**
+     * Returns the number of good crates we got.
+     *
+     * @return  The number of crates on goals.
+     */
+    public int getGoodCrateCount() {
+        return this.goodCrateCount;
+    }
+
+    /**
+     * Returns the x-coordinates of the crates, summed.
+     *
+     * @return  The sum of the x-coordinates.
+     */
+    public int getCrateCentroidX() {
+        return this.crateCentroidX;
+    }
+
+    /**
+     * Returns the y-coordinates of the crates, summed.
+     *
+     * @return  The sum of the y-coordinates.
+     */
+    public int getCrateCentroidY() {
+        return this.crateCentroidY;
+    }
+
+    /**
+     * Returns the neighbor bits of every crate, in the same order as the locations.
+     *
+     * @param   map     The map the crates are on.
+     * @return          The neighbor bits of each crate.
+     */
+    private byte[] getNeighbors(SokoMap map) {
+        if(this.neighbors != null)
+            return this.neighbors;
+
+        // A neighbor is either a wall or a crate
+        byte[] neighbors = new byte[this.locations.length];
+        for(int i = 0; i < this.locations.length; i++) {
+            int location = this.locations[i];
+
+            if(map.hasWall(location, map.getNorth()) || this.hasCrate(location + map.getNorth()))
+                neighbors[i] |= Grid.NORTH;
+            if(map.hasWall(location, map.getEast()) || this.hasCrate(location + map.getEast()))
+                neighbors[i] |= Grid.EAST;
+            if(map.hasWall(location, map.getSouth()) || this.hasCrate(location + map.getSouth()))
+                neighbors[i] |= Grid.SOUTH;
+            if(map.hasWall(location, map.getWest()) || this.hasCrate(location + map.getWest()))
+                neighbors[i] |= Grid.WEST;
+        }
+
+        this.neighbors = neighbors;
+        return this.neighbors;
+    }
+
+    /**
+     * Returns a crate we can use to test stuff.
+     *
+     * @param   location    The location of the crate.
+     * @param   map         The map the crate is on.
+     * @return              Crate object or null if not found.
+     */
+    public SokoCrate getCrate(int location, SokoMap map) {
+        int index = Arrays.binarySearch(this.locations, location);
+        if(index < 0)
+            return null;
+
+        byte neighbors = this.getNeighbors(map)[index];
+        SokoCrate crate = SokoCrate
+            .create(location)
+            .setN((neighbors & Grid.NORTH) == Grid.NORTH)
+            .setE((neighbors & Grid.EAST) == Grid.EAST)
+            .setW((neighbors & Grid.WEST) == Grid.WEST)
+            .setS((neighbors & Grid.SOUTH) == Grid.SOUTH)
+            .build();
+        crate.setGood(map.hasGoal(location));
+
+        return crate;
+    }
+
+    /**
+     * Checks whether or not a crate can never be pushed again, with it or one of the crates
+     * keeping it in place off a goal. Only the crate and the crates next to it (and theirs, and so on)
+     * are looked at, so this is cheap enough to run on every push.
+     *
+     * @param   crate   The location of the crate to check, usually the one just pushed.
+     * @param   map     The map the crates are on.
+     * @return          Whether or not the layout can't be solved anymore.
+     */
+    public boolean isFreezeDeadlocked(int crate, SokoMap map) {
+        return this.getFreeze(crate, new long[this.crates.length], map) == FREEZE_OFF_GOAL;
+    }
+
+    /**
+     * Checks whether or not a crate is part of a window of walls and crates that can never be cleared.
+     * Every window around the crate is numbered and looked up (see SokoDeadlockPatterns).
+     *
+     * @param   crate   The location of the crate to check, usually the one just pushed.
+     * @param   map     The map the crates are on.
+     * @return          Whether or not the layout can't be solved anymore.
+     */
+    public boolean isPatternDeadlocked(int crate, SokoMap map) {
+        int[][] shapes = SokoDeadlockPatterns.SHAPES;
+        SokoDeadlockPatterns patterns = map.getDeadlockPatterns();
+        int x = map.getX(crate);
+        int y = map.getY(crate);
+
+        for(int i = 0; i < shapes.length; i++) {
+            int width = shapes[i][0];
+            int height = shapes[i][1];
+
+            // Every window with the crate in it
+            for(int dy = Math.min(y, height - 1); dy >= 0; dy--) {
+                for(int dx = Math.min(x, width - 1); dx >= 0; dx--) {
+                    int origin = map.encode(x - dx, y - dy);
+                    int window = map.getPatternBase(i, origin);
+                    if(window < 0)
+                        continue;
+
+                    // Add the crates to the walls
+                    for(int k = 0, digit = 1; k < width * height; k++, digit *= 3)
+                        if(this.hasCrate(origin + (k % width) * map.getEast() + (k / width) * map.getSouth()))
+                            window += SokoDeadlockPatterns.CRATE * digit;
+
+                    if(patterns.isDeadlock(i, window))
+                        return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whether or not a crate is frozen, i.e. blocked both vertically and horizontally.
+     * Crates already being checked count as walls, so crates blocking each other don't loop forever.
+     *
+     * @param   crate       The location of the crate.
+     * @param   checked     The crates being checked, as one bit per location.
+     * @param   map         The map the crates are on.
+     * @return              FREEZE_NONE, or whether or not every frozen crate involved is on a goal.
+     */
+    private int getFreeze(int crate, long[] checked, SokoMap map) {
+        checked[crate >>> 6] |= 1L << crate;
+
+        // Both axes need to be blocked
+        int vertical = this.getAxisFreeze(crate, map.getNorth(), checked, map);
+        int horizontal = vertical == FREEZE_NONE
+            ? FREEZE_NONE
+            : this.getAxisFreeze(crate, map.getEast(), checked, map);
+
+        // Not frozen; others shouldn't treat it as a wall then
+        if(horizontal == FREEZE_NONE) {
+            checked[crate >>> 6] &= ~(1L << crate);
+            return FREEZE_NONE;
+        }
+
+        return Math.max(
+            map.hasGoal(crate) ? FREEZE_ON_GOALS : FREEZE_OFF_GOAL,
+            Math.max(vertical, horizontal));
+    }
+
+    /**
+     * Checks whether or not a crate is blocked along one axis.
+     *
+     * @param   crate       The location of the crate.
+     * @param   direction   Either direction along the axis.
+     * @param   checked     The crates being checked, as one bit per location.
+     * @param   map         The map the crates are on.
+     * @return              FREEZE_NONE, or whether or not every frozen crate involved is on a goal.
+     */
+    private int getAxisFreeze(int crate, int direction, long[] checked, SokoMap map) {
+        int ahead = crate + direction;
+        int behind = crate - direction;
+
+        // A wall on either side
+        if(map.hasWall(crate, direction) || map.hasWall(crate, -direction))
+            return FREEZE_ON_GOALS;
+
+        // Pushing either way puts the crate on a dead cell
+        if(!map.isPassable(ahead) && !map.isPassable(behind))
+            return FREEZE_ON_GOALS;
+
+        // A frozen crate on either side
+        for(int neighbor : new int[] { ahead, behind }) {
+            if(!this.hasCrate(neighbor))
+                continue;
+
+            // Being checked, so it counts as a wall
+            if((checked[neighbor >>> 6] & (1L << neighbor)) != 0)
+                return FREEZE_ON_GOALS;
+
+            int freeze = this.getFreeze(neighbor, checked, map);
+            if(freeze != FREEZE_NONE)
+                return freeze;
+        }
+
+        return FREEZE_NONE;
+    }
+
+    /**
+     * Returns a lower bound on the pushes needed to put every crate on a goal.
+     * How it's worked out depends on the cost estimate of the map; the centroid estimate doesn't use it.
+     *
+     * @param   map     The map the crates are on.
+     * @return          The number of pushes, or Matching.INFEASIBLE if the crates can't all get a goal.
+     */
+    public int getMatchingCost(SokoMap map) {
+        if(this.matchingCost < 0)
+            this.matchingCost = this.computeMatchingCost(map);
+
+        return this.matchingCost;
+    }
+
+    /**
+     * Computes the value returned by getMatchingCost.
+     *
+     * @param   map     The map the crates are on.
+     * @return          The number of pushes, or Matching.INFEASIBLE if the crates can't all get a goal.
+     */
+    private int computeMatchingCost(SokoMap map) {
+        if(map.getCostEstimate() == SokoMap.CostEstimate.CENTROID)
+            return 0;
+
+        // The push distance from every crate to every goal
+        int goalCount = map.getGoalLocations().length;
+        int[][] costs = new int[this.locations.length][goalCount];
+        for(int i = 0; i < this.locations.length; i++) {
+            for(int j = 0; j < goalCount; j++) {
+                int distance = map.getPushDistance(j, this.locations[i]);
+                costs[i][j] = distance == Short.MAX_VALUE ? Matching.UNREACHABLE : distance;
+            }
+        }
+
+        return map.getCostEstimate() == SokoMap.CostEstimate.GREEDY
+            ? Matching.greedy(costs)
+            : Matching.minimum(costs);
+    }
+
+    /**
+     * Determines the status of the layout.
+     * This doesn't depend on the player, so it's shared by every state with this layout.
+     *
+     * @param   map     The map to check the layout with.
+     * @return          An enum indicating what status the layout is in.
+     */
+    public SokoState.StateStatus getStatus(SokoMap map) {
+        if(this.status == null)
+            this.status = this.computeStatus(map);
+
+        return this.status;
+    }
+
+    /**
+     * Computes the status returned by getStatus.
+     *
+     * @param   map     The map to check the layout with.
+     * @return          An enum indicating what status the layout is in.
+     */
+    private SokoState.StateStatus computeStatus(SokoMap map) {
+
+        boolean allCratesAreGood = this.goodCrateCount == this.locations.length;
+
+        // We won!
+        // It is important to check for this condition first
+        // because crates can be stuck in a winning state
+        if(allCratesAreGood)
+            return SokoState.StateStatus.WON;
+
+        // Check if at least one crate entered a non-passable cell
+        for(int crate : this.locations)
+            if(!map.isPassable(crate))
+                return SokoState.StateStatus.LOST;
+
+        // Some crate has no goal left to go to
+        if(this.getMatchingCost(map) == Matching.INFEASIBLE)
+            return SokoState.StateStatus.LOST;
+
+        // Check if all crates are at least temporarily stuck
+        boolean allCratesAreStuck = true;
+        for(int location : this.locations)
+            if(!this.getCrate(location, map).isStuck())
+                allCratesAreStuck = false;
+
+        // Check for crates that can never move again
+        for(int location : this.locations)
+            if(!map.hasGoal(location) && this.isFreezeDeadlocked(location, map))
+                return SokoState.StateStatus.LOST;
+
+        // No more moves for this state
+        if(allCratesAreStuck)
+            return SokoState.StateStatus.LOST;
+
+        // Still more to do
+        return SokoState.StateStatus.PENDING;
+    }
+}
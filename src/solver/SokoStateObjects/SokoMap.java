@@ -10,26 +10,17 @@
 package solver.SokoStateObjects;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Set;
-import java.util.TreeSet;
-import java.util.Map;
-import java.util.TreeMap;
-import java.util.Collection;
-
-import solver.utils.Location;
+import java.util.Random;
 
 public class SokoMap {
 
-    // States of the cells while checking for passability
-    enum UnpassableCheckWallState {
-        UNPASSABLE_WALL_WEST,
-        UNPASSABLE_WALL_EAST,
-        UNPASSABLE_WALL_NORTH,
-        UNPASSABLE_WALL_SOUTH,
-        UNPASSABLE_WALL_PENDING,
-        UNPASSABLE_WALL_NONE,
+    // How states estimate the pushes they have left (see SokoState.getCost)
+    public enum CostEstimate {
+        CENTROID,   // Distance between the center of the crates and the center of the goals
+        GREEDY,     // Each crate takes the nearest goal left, by push distance
+        MATCHING,   // The cheapest way to give each crate its own goal, by push distance
     }
 
     // This cannot be modified after it has been set
@@ -37,20 +28,70 @@ public class SokoMap {
     // false means there's a wall on that cell, while true indicates otherwise
     private boolean[][] mapOpenCells;
 
+    // Locations are flat indices, y * width + x
+    // The width has a column to spare past the longest row, which is always a wall,
+    // so stepping off either side of a row lands on a wall instead of the next row
+    private int width;
+    private int height;
+
+    // The coordinates of every location, so decoding is a lookup
+    private short[] xs;
+    private short[] ys;
+
+    // The offsets of north, south, east and west, in that order
+    private int[] directions;
+
+    // The walls and goals again, as one bit per location, so that lookups are a single bit test
+    // Anything outside the map counts as a wall
+    private long[] wallBits;
+    private long[] goalBits;
+    private int cellCount;
+
     // Stores whether or not locations are stuckable
     // Stuckable locations are locations where boxes cannot be moved out of (even if the boxes aren't stuck)
     // Stuckable locations also account for goals, and if goals are nearby then they do not count as stuckable
     private boolean[][] mapPassableCells;
 
-    // A cost map that assigns a penalty value to each cell based on its distance to the nearest crate
-    private Map<Integer, short[][]> mapCellCosts;
+    // The number of pushes a lone crate needs to get from each location to each goal
+    // Indexed by goal (in the order of getGoalLocations) and then by location
+    private short[][] pushDistances;
+
+    // Which neighbors of a cell the player can walk between while a crate sits on it
+    // Four entries per location, one per direction in getDirections
+    // Neighbors with the same value are connected; walls are -1
+    private byte[] sideAreas;
+
+    // Where a crate pushed along a direction has walls on both sides
+    // One bit per direction, in the order of getDirections
+    private byte[] tunnels;
+
+    // Random keys for every location, one set for crates and one for the player
+    // A state's hash is the xor of the keys of its crates and its player (Zobrist hashing)
+    // The seed is fixed so runs are reproducible
+    private static final long ZOBRIST_SEED = 0x50C0B07L;
+    private long[] crateKeys;
+    private long[] playerKeys;
 
     // The goal locations
     private List<Integer> goals;
     private int[] goalLocations;
     
-    // A vector sum of the goal locations
-    private int goalCentroid = 0;
+    // A vector sum of the goal locations, one sum per axis
+    private int goalCentroidX = 0;
+    private int goalCentroidY = 0;
+
+    // What states use to estimate their cost, and how they weigh it against their history
+    private CostEstimate costEstimate;
+    private SokoCostModel costModel;
+
+    // The room the goals are in, if they're behind a single entrance (see SokoGoalRoom)
+    private SokoGoalRoom goalRoom;
+
+    // Windows of walls and crates that can never be cleared (see SokoDeadlockPatterns)
+    // For each shape, the number of every window by its top left location, counting only its walls
+    // Windows with a goal in them, or that don't fit on the map, are -1
+    private SokoDeadlockPatterns deadlockPatterns;
+    private int[][] patternBases;
 
     /**
      * Creates a new map object.
@@ -58,263 +99,259 @@ public class SokoMap {
      * @param   map     The contents of the map.
      */
     public SokoMap(char[][] map) {
+        this(map, CostEstimate.CENTROID);
+    }
+
+    /**
+     * Creates a new map object whose states use a specific cost estimate.
+     *  
+     * @param   map             The contents of the map.
+     * @param   costEstimate    How states estimate the work they have left.
+     */
+    public SokoMap(char[][] map, CostEstimate costEstimate) {
+        this(map, costEstimate, new SokoCostModel());
+    }
+
+    /**
+     * Creates a new map object whose states use a specific cost estimate and cost model.
+     *  
+     * @param   map             The contents of the map.
+     * @param   costEstimate    How states estimate the work they have left.
+     * @param   costModel       How states weigh their history and the work they have left.
+     */
+    public SokoMap(char[][] map, CostEstimate costEstimate, SokoCostModel costModel) {
 
         // Init the map and the goals
         this.mapOpenCells = new boolean[map.length][];
         this.mapPassableCells = new boolean[map.length][];
-        this.mapCellCosts = new TreeMap<>();
         this.goals = new ArrayList<>();
+        this.costEstimate = costEstimate;
+        this.costModel = costModel;
         
         // Init the maps
         this.initMaps(map);
+        this.initKeys();
+
+        // Work out how to fill the goal room, if there is one
+        this.goalRoom = SokoGoalRoom.find(this, map);
+
+        // Map the deadlock table, and work out the walls of every window
+        this.deadlockPatterns = SokoDeadlockPatterns.getInstance();
+        this.generatePatternBases();
     }
 
     /**
-     * A step in the preprocessing of the map for unpassable cells.
-     * Checks whether or not a cell has a wall left or right of it (or both or neither).
-     *  
-     * @param   location    The location to inspect.
-     * @return              The result of the check.
+     * Generates the random keys used for hashing states.
      */
-    private UnpassableCheckWallState checkVerticalUnpassable(int location) {
-
-        // Western walls 
-        if(!this.hasWall(location, Location.EAST) && 
-            this.hasWall(location, Location.WEST))
-            return UnpassableCheckWallState.UNPASSABLE_WALL_WEST;
+    private void initKeys() {
+        Random random = new Random(ZOBRIST_SEED);
 
-        // Eastern walls
-        if(!this.hasWall(location, Location.WEST) && 
-            this.hasWall(location, Location.EAST))
-            return UnpassableCheckWallState.UNPASSABLE_WALL_EAST;
+        this.crateKeys = new long[this.getCellCount()];
+        this.playerKeys = new long[this.getCellCount()];
 
-        // No walls on either side, so line is passable
-        if(!this.hasWall(location, Location.WEST) && 
-            !this.hasWall(location, Location.EAST))
-            return UnpassableCheckWallState.UNPASSABLE_WALL_NONE; 
-
-        // Walls on both sides, whole line might still be unpassable
-        return UnpassableCheckWallState.UNPASSABLE_WALL_PENDING; 
+        for(int i = 0; i < this.getCellCount(); i++) {
+            this.crateKeys[i] = random.nextLong();
+            this.playerKeys[i] = random.nextLong();
+        }
     }
 
     /**
-     * Checks for unpassability through a vertical strip, but with the side already decided.
-     * Calls the same method with a different signature.
-     * 
-     * @param   location        The location to inspect.
-     * @param   currentState    The current determined state of the vertical strip of cells.
-     * @return                  Whether the state changed or not.
+     * Finds the cells a crate can never be pushed out of and onto a goal.
+     * Those are the cells no goal has a push distance for (see generatePushDistances).
      */
-    private UnpassableCheckWallState checkVerticalUnpassable(int location, UnpassableCheckWallState currentState) {
-        
-        // If it's pending, just call the plain function as is
-        if(currentState == UnpassableCheckWallState.UNPASSABLE_WALL_PENDING)
-            return this.checkVerticalUnpassable(location);
-
-        // Grab new state
-        UnpassableCheckWallState newState = this.checkVerticalUnpassable(location);
+    private void generatePassableCells() {
+        for(int y = 0; y < this.mapPassableCells.length; y++) {
+            for(int x = 0; x < this.mapPassableCells[y].length; x++) {
+                int location = this.encode(x, y);
 
-        // If not equal, then the walls are passable
-        // Walls switched sides
-        // Unless both sides have walls
-        if(newState != currentState && newState != UnpassableCheckWallState.UNPASSABLE_WALL_PENDING)
-            return UnpassableCheckWallState.UNPASSABLE_WALL_NONE;
+                // Walls stay as they are
+                if(!this.mapOpenCells[y][x])
+                    continue;
 
-        // Otherwise, return current state
-        return currentState;
+                // Passable if at least one goal can be reached
+                this.mapPassableCells[y][x] = false;
+                for(short[] distances : this.pushDistances)
+                    if(distances[location] != Short.MAX_VALUE)
+                        this.mapPassableCells[y][x] = true;
+            }
+        }
     }
 
     /**
-     * A step in the preprocessing of the map for unpassable cells.
-     * Checks whether or not a cell has a wall above or below it (or both or neither).
-     *  
-     * @param   location    The location to inspect.
-     * @return              The result of the check.
+     * Works out which neighbors of each cell the player can walk between when a crate is on the cell.
+     * Walls are the only other obstacle.
      */
-    private UnpassableCheckWallState checkHorizontalUnpassable(int location) {
-        
-        // Northern walls 
-        if(!this.hasWall(location, Location.SOUTH) && 
-            this.hasWall(location, Location.NORTH))
-            return UnpassableCheckWallState.UNPASSABLE_WALL_NORTH;
+    private void generateSideAreas() {
+        int[] directions = this.directions;
+        int[] area = new int[this.cellCount];
+        int[] queue = new int[this.cellCount];
+        int mark = 0;
+
+        this.sideAreas = new byte[this.cellCount * directions.length];
+        Arrays.fill(this.sideAreas, (byte) -1);
+
+        for(int cell = 0; cell < this.cellCount; cell++) {
+            if(this.hasWall(cell))
+                continue;
+
+            // Flood from every neighbor that hasn't been reached yet, with the cell blocked
+            for(int k = 0; k < directions.length; k++) {
+                int start = cell + directions[k];
+                if(this.hasWall(start) || this.sideAreas[cell * directions.length + k] >= 0)
+                    continue;
 
-        // Southern walls
-        if(!this.hasWall(location, Location.NORTH) && 
-            this.hasWall(location, Location.SOUTH))
-            return UnpassableCheckWallState.UNPASSABLE_WALL_SOUTH;
+                // Marks are never reused, so the area array doesn't need clearing
+                int head = 0, tail = 0;
+                area[start] = ++mark;
+                queue[tail++] = start;
 
-        // No walls on either side
-        if(!this.hasWall(location, Location.NORTH) && 
-            !this.hasWall(location, Location.SOUTH))
-            return UnpassableCheckWallState.UNPASSABLE_WALL_NONE;
+                while(head < tail) {
+                    int location = queue[head++];
 
-        // Walls on both sides, whole line might still be unpassable
-        return UnpassableCheckWallState.UNPASSABLE_WALL_PENDING;
-    }
+                    for(int direction : directions) {
+                        int next = location + direction;
 
-    /**
-     * Checks for unpassability through a horizontal strip, but with the side already decided.
-     * Calls the same method with a different signature.
-     * 
-     * @param   location        The location to inspect.
-     * @param   currentState    Where walls have been seen so far for that side.
-     * @return                  Whether or not the wall was on the same side or not.
-     */
-    private UnpassableCheckWallState checkHorizontalUnpassable(int location, UnpassableCheckWallState currentState) {
-        
-        // If it's pending, just call the plain function as is
-        if(currentState == UnpassableCheckWallState.UNPASSABLE_WALL_PENDING)
-            return this.checkHorizontalUnpassable(location);
+                        if(next == cell || this.hasWall(next) || area[next] == mark)
+                            continue;
 
-        // Grab new state
-        UnpassableCheckWallState newState = this.checkHorizontalUnpassable(location);
-        
-        // If not equal, then the walls are passable
-        // Walls switched sides
-        // Unless both sides have walls
-        if(newState != currentState && newState != UnpassableCheckWallState.UNPASSABLE_WALL_PENDING)
-            return UnpassableCheckWallState.UNPASSABLE_WALL_NONE;
+                        area[next] = mark;
+                        queue[tail++] = next;
+                    }
+                }
 
-        // Return current state
-        return currentState;
+                // Every neighbor the flood got to shares an area
+                for(int j = k; j < directions.length; j++)
+                    if(!this.hasWall(cell + directions[j]) && area[cell + directions[j]] == mark)
+                        this.sideAreas[cell * directions.length + j] = (byte) k;
+            }
+        }
     }
 
     /**
-     * Generates unpassable corners.
-     * Updates the unpassable map and creates a set of the unpassable corners.
-     * 
-     * @return  A set containing the locations of the unpassable corners.
+     * Counts the pushes a lone crate needs to get from every location to every goal.
+     * Works backwards from each goal, pulling the crate away from it.
+     * A pull from a cell is only allowed if the player could have walked to the side it pulls from,
+     * so each step of the search is a crate location together with the area the player is in.
+     * The distance of a location is the smallest over the areas the player could be in.
      */
-    private Set<Integer> generateUnpassableCorners() {
+    private void generatePushDistances() {
+        int[] goals = this.getGoalLocations();
+        int[] directions = this.directions;
+        int sides = directions.length;
+        short[] distances = new short[this.cellCount * sides];
+        int[] queue = new int[this.cellCount * sides];
+
+        this.generateSideAreas();
+        this.pushDistances = new short[goals.length][this.cellCount];
+
+        for(int i = 0; i < goals.length; i++) {
+            short[] goalDistances = this.pushDistances[i];
+            int head = 0, tail = 0;
+            Arrays.fill(distances, Short.MAX_VALUE);
+            Arrays.fill(goalDistances, Short.MAX_VALUE);
+
+            // The crate is done on the goal, wherever the player is
+            for(int k = 0; k < sides; k++) {
+                int state = goals[i] * sides + k;
+
+                if(this.sideAreas[state] == k) {
+                    distances[state] = 0;
+                    queue[tail++] = state;
+                }
+            }
+            goalDistances[goals[i]] = 0;
 
-        // Set of unpassable corners
-        Set<Integer> unpassableCorners = new TreeSet<>();
+            // Pull the crate away from it
+            while(head < tail) {
+                int state = queue[head++];
+                int location = state / sides;
+                int area = this.sideAreas[state];
 
-        // Compute the unpassable corners
-        for(int y = 0; y < this.mapPassableCells.length; y++) {
-            for(int x = 0; x < this.mapPassableCells[y].length; x++) {
+                for(int k = 0; k < sides; k++) {
 
-                // Grab current cell coords
-                int location = Location.encode(x, y);
+                    // The player has to be on that side, having just pushed from there
+                    if(this.sideAreas[location * sides + k] != area)
+                        continue;
 
-                // We don't check walls too,,
-                if(this.hasWall(location))
-                    continue;
+                    // The crate came from that side, and the player stood one further
+                    int crate = location + directions[k];
+                    int player = crate + directions[k];
+                    if(this.hasWall(crate) || this.hasWall(player))
+                        continue;
 
-                // Mark corners unpassable
-                if((this.hasWall(location + Location.NORTH) && this.hasWall(location + Location.EAST)) ||
-                    (this.hasWall(location + Location.EAST) && this.hasWall(location + Location.SOUTH)) ||
-                    (this.hasWall(location + Location.SOUTH) && this.hasWall(location + Location.WEST)) ||
-                    (this.hasWall(location + Location.WEST) && this.hasWall(location + Location.NORTH))) {
+                    // The player is now on the side of the crate it pushed from
+                    int previous = crate * sides + this.sideAreas[crate * sides + k];
+                    if(distances[previous] != Short.MAX_VALUE)
+                        continue;
 
-                    // Corner has no goal
-                    if(!this.hasGoal(location)) {
-                        this.mapPassableCells[y][x] = false;
-                        unpassableCorners.add(location);
-                    }
+                    distances[previous] = (short) (distances[state] + 1);
+                    queue[tail++] = previous;
+
+                    // Keep the best over all sides
+                    if(distances[previous] < goalDistances[crate])
+                        goalDistances[crate] = distances[previous];
                 }
             }
         }
-
-        // Set on unpassable corners
-        return unpassableCorners;
     }
 
     /**
-     * Generates a vertical line of unpassable cells between two unpassable corners.
-     * If such a line does not exist, it does nothing.
-     * 
-     * @param   x   The shared x between the two corners.
-     * @param   y1  The first y.
-     * @param   y2  The second y.
+     * Finds the tunnels: cells walled in on both sides of a direction, so that a crate pushed
+     * along it can only keep going forward or come back.
      */
-    private void generateUnpassableVertical(int x, int y1, int y2) {
+    private void generateTunnels() {
+        int[] directions = this.directions;
+        this.tunnels = new byte[this.cellCount];
 
-        // All cells on the strip are unpassable
-        // If this becomes false, we just early return from the function
-        boolean allCellsUnpassable = true;
-        UnpassableCheckWallState side = UnpassableCheckWallState.UNPASSABLE_WALL_PENDING;
+        for(int cell = 0; cell < this.cellCount; cell++) {
+            if(this.hasWall(cell))
+                continue;
 
-        // Go through the path between the corners
-        for(int yIter = Math.min(y1, y2) + 1; yIter < Math.max(y1, y2); yIter++) {
-            
-            // Current inspect
-            int currentLocation = Location.encode(x, yIter);
+            for(int k = 0; k < directions.length; k++) {
 
-            // If it has a wall, then we're checking the wrong pair of corners
-            if(this.hasWall(currentLocation)) {
-                allCellsUnpassable = false;
-                break;
-            }
+                // The sides of a vertical push are east and west, and the other way around
+                int side = directions[k] == this.getNorth() || directions[k] == this.getSouth()
+                    ? this.getEast()
+                    : this.getNorth();
 
-            // If it has a goal, then this region should be passable
-            if(this.hasGoal(currentLocation)) {
-                allCellsUnpassable = false;
-                break;
+                if(this.hasWall(cell + side) && this.hasWall(cell - side))
+                    this.tunnels[cell] |= 1 << k;
             }
-
-            // Determine walls
-            side = this.checkVerticalUnpassable(currentLocation, side);
-
-            // Not unpassable
-            if(side == UnpassableCheckWallState.UNPASSABLE_WALL_NONE) {
-                allCellsUnpassable = false;
-                break;
-            }        
         }
-
-        // Mark the cells between the two corners as unpassable
-        if(allCellsUnpassable)
-            for(int yIter = Math.min(y1, y2) + 1; yIter < Math.max(y1, y2); yIter++)
-                this.mapPassableCells[yIter][x] = false;
     }
 
     /**
-     * Generates a horizontal line of unpassable cells between two unpassable corners.
-     * If such a line does not exist, it does nothing.
-     * 
-     * @param   y   The shared y between the two corners.
-     * @param   x1  The first x.
-     * @param   x2  The second x.
+     * Numbers every window by its walls alone, so that a lookup only has to add its crates.
      */
-    private void generateUnpassableHorizontal(int y, int x1, int x2) {
+    private void generatePatternBases() {
+        int[][] shapes = SokoDeadlockPatterns.SHAPES;
+        this.patternBases = new int[shapes.length][this.cellCount];
 
-        // All cells on the strip are unpassable
-        // If this becomes false, we just early return from the function
-        boolean allCellsUnpassable = true;
-        UnpassableCheckWallState side = UnpassableCheckWallState.UNPASSABLE_WALL_PENDING;
-        
-        // Go through the path between the corners
-        for(int xIter = Math.min(x1, x2) + 1; xIter < Math.max(x1, x2); xIter++) {
+        for(int i = 0; i < shapes.length; i++) {
+            Arrays.fill(this.patternBases[i], -1);
 
-            // Grab the current inspect location
-            int currentLocation = Location.encode(xIter, y);
+            for(int y = 0; y + shapes[i][1] <= this.height; y++) {
+                for(int x = 0; x + shapes[i][0] <= this.width; x++) {
+                    int base = 0;
 
-            // If it has a wall, then we're checking the wrong pair of corners
-            if(this.hasWall(currentLocation)) {
-                allCellsUnpassable = false;
-                break;
-            }
+                    // Each cell is a digit; walls are the only ones known yet
+                    for(int k = 0, digit = 1; k < shapes[i][0] * shapes[i][1]; k++, digit *= 3) {
+                        int cell = this.encode(x + k % shapes[i][0], y + k / shapes[i][0]);
 
-            // If it has a goal, then this region should be passable
-            if(this.hasGoal(currentLocation)) {
-                allCellsUnpassable = false;
-                break;
-            }
+                        // Crates in here have somewhere to go
+                        if(this.hasGoal(cell)) {
+                            base = -1;
+                            break;
+                        }
 
-            side = this.checkHorizontalUnpassable(currentLocation, side);
+                        if(this.hasWall(cell))
+                            base += SokoDeadlockPatterns.WALL * digit;
+                    }
 
-            // Not unpassable
-            if(side == UnpassableCheckWallState.UNPASSABLE_WALL_NONE) {
-                allCellsUnpassable = false;
-                break;
+                    this.patternBases[i][this.encode(x, y)] = base;
+                }
             }
         }
-
-        // Mark the cells between the two corners as unpassable
-        if(allCellsUnpassable)
-            for(int xIter = Math.min(x1, x2) + 1; xIter < Math.max(x1, x2); xIter++)
-                this.mapPassableCells[y][xIter] = false;
     }
 
     /**
@@ -338,13 +375,68 @@ public class SokoMap {
             case '.': 
             case '+': 
             case '*': 
-                this.goalCentroid += Location.encode(x, y);
-                this.goals.add(Location.encode(x, y));
+                this.goalCentroidX += x;
+                this.goalCentroidY += y;
+                this.goals.add(this.encode(x, y));
                 break;
         }
         
     }
 
+    /**
+     * Sizes the locations to the map, and works out the coordinates and directions that go with them.
+     * 
+     * @param   map     The reference map.
+     */
+    private void initLocations(char[][] map) {
+
+        // The longest row decides the width, plus the column of walls
+        int width = 0;
+        for(char[] row : map)
+            width = Math.max(width, row.length);
+
+        this.width = width + 1;
+        this.height = map.length;
+        this.cellCount = this.width * this.height;
+
+        // Decode every location once
+        this.xs = new short[this.cellCount];
+        this.ys = new short[this.cellCount];
+        for(int location = 0; location < this.cellCount; location++) {
+            this.xs[location] = (short) (location % this.width);
+            this.ys[location] = (short) (location / this.width);
+        }
+
+        // North, south, east and west
+        this.directions = new int[] { -this.width, this.width, 1, -1 };
+    }
+
+    /**
+     * Creates the wall and goal bits.
+     * Every location starts out as a wall; only the open cells of the map are cleared.
+     */
+    private void initBits() {
+
+        // Init the bits
+        this.wallBits = new long[(this.cellCount + 63) >>> 6];
+        this.goalBits = new long[(this.cellCount + 63) >>> 6];
+        Arrays.fill(this.wallBits, -1L);
+
+        // Clear the open cells
+        for(int y = 0; y < this.mapOpenCells.length; y++) {
+            for(int x = 0; x < this.mapOpenCells[y].length; x++) {
+                int location = this.encode(x, y);
+
+                if(this.mapOpenCells[y][x])
+                    this.wallBits[location >>> 6] &= ~(1L << location);
+            }
+        }
+
+        // Set the goals
+        for(int goal : this.goals)
+            this.goalBits[goal >>> 6] |= 1L << goal;
+    }
+
     /**
      * Inits both the map and passable arrays.
      * 
@@ -352,6 +444,9 @@ public class SokoMap {
      */
     private void initMaps(char[][] map) {
 
+        // Locations have to be sized before anything is placed
+        this.initLocations(map);
+
         // Populate the map
         for(int y = 0; y < map.length; y++) {
             
@@ -374,219 +469,319 @@ public class SokoMap {
             }
         }
 
-        // Set of unpassable corners
-        Set<Integer> unpassableCorners = this.generateUnpassableCorners();
+        // The bit versions of the walls and goals
+        this.initBits();
 
-        // Compute remaining of unpassable cells
-        for(int corner1 : unpassableCorners) {
-            for(int corner2 : unpassableCorners) {
-                
-                // First corner
-                short x1 = Location.decodeX(corner1);
-                short y1 = Location.decodeY(corner1);
+        // Count the pushes to the goals, then mark the cells crates shouldn't go to
+        this.generatePushDistances();
+        this.generatePassableCells();
+        this.generateTunnels();
+    }
 
-                // Second corner
-                short x2 = Location.decodeX(corner2);
-                short y2 = Location.decodeY(corner2);
+    /**
+     * Returns whether or not a location is passable.
+     * Otherwise, crates get stuck there.
+     * 
+     * @param   location    The location to inspect.
+     * @return              Whether or not getting a crate there means game over.
+     */
+    public boolean isPassable(int location) {
 
-                // We check pairs of non-equal corners
-                if(corner1 == corner2)
-                    continue;
+        // OOB
+        if(location < 0 || location >= this.cellCount)
+            return true;
 
-                // Only corners that line up are to be checked
-                if(x1 != x2 && y1 != y2)
-                    continue;
+        short x = this.xs[location];
+        short y = this.ys[location];
 
-                // Only corners that aren't goals count
-                if(this.hasGoal(corner1) || this.hasGoal(corner2))
-                    continue;
+        // OOB
+        if(x >= this.mapOpenCells[y].length)
+            return true;
+        
+        return this.mapPassableCells[y][x];
+    }
 
-                // Finally, we check if they're connected by walls
-                // Case 1: vertically aligned
-                if(x1 == x2)
-                    this.generateUnpassableVertical(x1, y1, y2);
+    /** 
+     * Returns whether or not goal at location exists.
+     * 
+     * @param   location    The location to inspect.
+     * @return              Presence of goal.
+    */
+    public boolean hasGoal(int location) {
 
-                // Case 2: Horizontally aligned
-                else if(y1 == y2)
-                    this.generateUnpassableHorizontal(y1, x1, x2);
-            }
-        }
+        // Outside the map
+        if(location < 0 || location >= this.cellCount)
+            return false;
+
+        return (this.goalBits[location >>> 6] & (1L << location)) != 0;
+    }
 
-        // // Init all the grids per goal
-        // for(int goal : this.goals) {
+    /**
+     * Private to ensure that invalid coordinates are not placed here.
+     * Returns the presence of a wall on a cell.
+     * 
+     * @param   location    The location to inspect.
+     * @return              The presence of wall on a given cell.
+     */
+    private boolean hasWall(int location) {
 
-        //     // Create map for that goal
-        //     this.mapCellCosts.put(goal, new short[this.mapOpenCells.length][]);
+        // OOB
+        if(location < 0 || location >= this.cellCount)
+            return true;
 
-        //     // Populate the map
-        //     for(int y = 0; y < this.mapOpenCells.length; y++) {            
-    
-        //         // Create row
-        //         this.mapCellCosts.get(goal)[y] = new short[this.mapOpenCells[y].length];
-    
-        //         // For each cell
-        //         for(int x = 0; x < this.mapOpenCells[y].length; x++)
-        //             this.mapCellCosts.get(goal)[y][x] = (1 << 15) - 1;
-        //     }
-        // }
+        return (this.wallBits[location >>> 6] & (1L << location)) != 0;
+    }
 
-        // // Define all the grids per goal
-        // for(int goal : this.goals) {
+    /**
+     * Returns the presence of a wall on an adjacent cell.
+     * 
+     * @param   location    The location to inspect.
+     * @param   direction   The direction of the adjacent cell.
+     * @return              The presence of wall on the adjacent cell.
+     */
+    public boolean hasWall(int location, int direction) {
+        return this.hasWall(location + direction);
+    }
 
-        //     // Grab the map associated with the goal
-        //     short[][] goalMap = this.mapCellCosts.get(goal);
+    /**
+     * Returns whether or not a cell is part of a tunnel along a direction.
+     * 
+     * @param   location    The location to inspect.
+     * @param   direction   The direction of the push.
+     * @return              Whether or not there are walls on both sides of the cell.
+     */
+    public boolean isTunnel(int location, int direction) {
 
-        //     // Traverse the goal map and update the costs
-        //     PriorityQueue<Long> queue = new PriorityQueue<>();
-        //     Set<Integer> visited = new TreeSet<>();
+        // Outside the map
+        if(location < 0 || location >= this.cellCount)
+            return false;
 
-        //     // Add first state
-        //     long start = goal;
-        //     queue.add(start);
+        for(int k = 0; k < this.directions.length; k++)
+            if(this.directions[k] == direction)
+                return (this.tunnels[location] & (1 << k)) != 0;
 
-        //     // Process the queue
-        //     while(!queue.isEmpty()) {
-             
-        //         // Grab the head
-        //         long head = queue.poll();
-        //         int location = (int) (head & -1);
-        //         short cost = (short) (head >> 32);
+        return false;
+    }
 
-        //         // Update goal map
-        //         int x = Location.decodeX(location);
-        //         int y = Location.decodeY(location);
-        //         goalMap[y][x] = cost;
+    /**
+     * Returns the location of a cell.
+     * 
+     * @param   x   The x-coordinate of the cell.
+     * @param   y   The y-coordinate of the cell.
+     * @return      The location, y * width + x.
+     */
+    public int encode(int x, int y) {
+        return y * this.width + x;
+    }
 
-        //         // Mark visited
-        //         visited.add(location);
+    /**
+     * Returns the x-coordinate of a location.
+     * 
+     * @param   location    A location on the map.
+     * @return              The x-coordinate.
+     */
+    public short getX(int location) {
+        return this.xs[location];
+    }
 
-        //         // For each direction
-        //         for(int direction : Location.DIRECTIONS) {
+    /**
+     * Returns the y-coordinate of a location.
+     * 
+     * @param   location    A location on the map.
+     * @return              The y-coordinate.
+     */
+    public short getY(int location) {
+        return this.ys[location];
+    }
 
-        //             // Check if invalid move
-        //             if(this.hasWall(location, direction))
-        //                 continue;
+    /**
+     * Returns how far apart two rows are; one more than the longest row.
+     * 
+     * @return  The width of the locations.
+     */
+    public int getWidth() {
+        return this.width;
+    }
 
-        //             // State was already visited
-        //             if(visited.contains(location + direction))
-        //                 continue;
+    /**
+     * Returns the offsets of north, south, east and west, in that order.
+     * The array is shared, so it must not be modified.
+     * 
+     * @return  The four directions.
+     */
+    public int[] getDirections() {
+        return this.directions;
+    }
+
+    public int getNorth() {
+        return this.directions[0];
+    }
+
+    public int getSouth() {
+        return this.directions[1];
+    }
 
-        //             // Otherwise, create new entry to append to queue
-        //             long queueEntry = cost + 1;
-        //             queueEntry <<= 32;
-        //             queueEntry += (location + direction);
+    public int getEast() {
+        return this.directions[2];
+    }
 
-        //             // Append to queue
-        //             queue.add(queueEntry);
-        //         }
-        //     }
-        // }
+    public int getWest() {
+        return this.directions[3];
     }
 
     /**
-     * Returns the cost of a cell.
-     * Cells with higher costs are bad places for crates to be in.
+     * Returns the move character associated with a direction.
      * 
-     * @param   location    The location to inspect.
-     * @return              Whether or not getting a crate there means game over.
+     * @param   direction   The direction of the move.
+     * @return              The move as a character.
      */
-    public float getCellCost(int location, Collection<Integer> crates) {
-        
-        float sum = 0;
-        int count = this.goals.size();
-
-        // For each goal, check its corresponding map
-        for(int goal : this.goals) {
+    public char getMove(int direction) {
+        if(direction == this.getNorth())
+            return 'u';
+        if(direction == this.getSouth())
+            return 'd';
+        if(direction == this.getEast())
+            return 'r';
+
+        return 'l';
+    }
 
-            // If the goal has no crate, add cost
-            if(!crates.contains(goal))
-                sum += this.mapCellCosts.get(goal)
-                    [Location.decodeY(goal)]
-                    [Location.decodeX(goal)];
-            
-            // Otherwise,
-            else
-                count--;
+    /**
+     * Returns the direction associated with a move character.
+     * 
+     * @param   move    The move as a character.
+     * @return          The direction of the move.
+     */
+    public int getDirection(char move) {
+        switch(move) {
+            case 'u': return this.getNorth();
+            case 'd': return this.getSouth();
+            case 'r': return this.getEast();
+            default:  return this.getWest();
         }
+    }
 
-        // Divide by the number of unfinished goals
-        sum /= count;
+    /**
+     * Returns the hash key of a crate at the given location.
+     * 
+     * @param   location    The location of the crate.
+     * @return              The key to xor into a state hash.
+     */
+    public long getCrateKey(int location) {
+        return this.crateKeys[location];
+    }
 
-        return sum;
+    /**
+     * Returns the hash key of the player at the given location.
+     * 
+     * @param   location    The location of the player.
+     * @return              The key to xor into a state hash.
+     */
+    public long getPlayerKey(int location) {
+        return this.playerKeys[location];
     }
 
     /**
-     * Returns whether or not a location is passable.
-     * Otherwise, crates get stuck there.
+     * Computes the hash of a state from scratch.
+     * States after the first should update their parent's hash instead.
      * 
-     * @param   location    The location to inspect.
-     * @return              Whether or not getting a crate there means game over.
+     * @param   player  The location of the player.
+     * @param   crates  The locations of the crates.
+     * @return          The hash of the state.
      */
-    public boolean isPassable(int location) {
-        short x = Location.decodeX(location);
-        short y = Location.decodeY(location);
+    public long getHash(int player, int[] crates) {
+        long hash = this.getPlayerKey(player);
 
-        // OOB
-        if(y < 0 || y >= this.mapOpenCells.length)
-            return true;
+        for(int crate : crates)
+            hash ^= this.getCrateKey(crate);
 
-        // OOB
-        if(x < 0 || x >= this.mapOpenCells[y].length)
-            return true;
-        
-        return this.mapPassableCells[y][x];
+        return hash;
     }
 
-    /** 
-     * Returns whether or not goal at location exists.
+    /**
+     * Returns the number of locations the map spans (one past the largest location on it).
+     * Arrays and bits indexed by location should be at least this long.
      * 
-     * @param   location    The location to inspect.
-     * @return              Presence of goal.
-    */
-    private boolean hasGoal(int location) {
-        return this.goals.contains(location);
+     * @return  The size of the location space.
+     */
+    public int getCellCount() {
+        return this.cellCount;
     }
 
     /**
-     * Private to ensure that invalid coordinates are not placed here.
-     * Returns the presence of a wall on a cell.
+     * Returns the number of pushes a lone crate needs to get to a goal.
      * 
-     * @param   location    The location to inspect.
-     * @return              The presence of wall on a given cell.
+     * @param   goal        The index of the goal, in the order of getGoalLocations.
+     * @param   location    Where the crate is.
+     * @return              The number of pushes, or Short.MAX_VALUE if it can't get there.
      */
-    private boolean hasWall(int location) {
-        short x = Location.decodeX(location);
-        short y = Location.decodeY(location);
+    public int getPushDistance(int goal, int location) {
+        return this.pushDistances[goal][location];
+    }
 
-        // OOB
-        if(y < 0 || y >= this.mapOpenCells.length)
-            return true;
+    /**
+     * Returns how states estimate their cost on this map.
+     * 
+     * @return  The cost estimate to use.
+     */
+    public CostEstimate getCostEstimate() {
+        return this.costEstimate;
+    }
 
-        // OOB
-        if(x < 0 || x >= this.mapOpenCells[y].length)
-            return true;
+    /**
+     * Returns how states weigh their history and the work they have left.
+     * 
+     * @return  The cost model.
+     */
+    public SokoCostModel getCostModel() {
+        return this.costModel;
+    }
 
-        return !this.mapOpenCells[y][x];
+    /**
+     * Returns the room the goals are in.
+     * 
+     * @return  The goal room, or null if the goals aren't behind a single entrance.
+     */
+    public SokoGoalRoom getGoalRoom() {
+        return this.goalRoom;
     }
 
     /**
-     * Returns the presence of a wall on an adjacent cell.
+     * Returns the table of windows that can never be cleared.
      * 
-     * @param   location    The location to inspect.
-     * @param   direction   The direction of the adjacent cell.
-     * @return              The presence of wall on the adjacent cell.
+     * @return  The deadlock table.
      */
-    public boolean hasWall(int location, int direction) {
-        return this.hasWall(location + direction);
+    public SokoDeadlockPatterns getDeadlockPatterns() {
+        return this.deadlockPatterns;
+    }
+
+    /**
+     * Returns the number of a window, counting only its walls.
+     * 
+     * @param   shape   The index of the shape in SokoDeadlockPatterns.SHAPES.
+     * @param   origin  The top left location of the window.
+     * @return          The number, or -1 if the window has a goal or doesn't fit on the map.
+     */
+    public int getPatternBase(int shape, int origin) {
+        return this.patternBases[shape][origin];
+    }
+
+    /**
+     * Returns the x-coordinates of the goals, summed.
+     * 
+     * @return  The x-coordinate of the center of the goals, times the number of goals.
+     */
+    public int getGoalCentroidX() {
+        return this.goalCentroidX;
     }
 
     /**
-     * Returns the center of the goals.
+     * Returns the y-coordinates of the goals, summed.
      * 
-     * @return  The approximate center of the goals.
+     * @return  The y-coordinate of the center of the goals, times the number of goals.
      */
-    public int getGoalCentroid() {
-        return this.goalCentroid;
+    public int getGoalCentroidY() {
+        return this.goalCentroidY;
     }
 
     /**
@@ -15,40 +15,23 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.math.BigInteger;
-import java.util.Collection;
-import java.util.TreeMap;
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Base64;
 
 import solver.SokoObjects.SokoCrate;
 import solver.utils.Heuristic;
-import solver.utils.Location;
 
 public class SokoState {
-    public static final float HEURISTIC_WEIGHT_MOVE_COUNT = 0.5f;
-    public static final float HEURISTIC_WEIGHT_CRATE_MOVE_COUNT = 0.35f;
-    public static final float HEURISTIC_WEIGHT_TURN_COUNT = 0.25f;
-
-    // Tweak this parameter, this seems like a good value for now
-    // Adjusts how much the heuristic influences cost evaluation
-    // 0.0 means not at all and 1.0 means it contributes a lot
-    public static final float HEURISTIC_WEIGHT_SOLUTION = 1.0f;
-    public static final float HEURISTIC_WEIGHT_GOOD_COUNT = 1.0f;
-    public static final float HEURISTIC_WEIGHT_DISTANCE = 0.05f;
-    public static final float HEURISTIC_WEIGHT_CRATE_SCORE = 0.1f;
-    
-    public static final int HEURISTIC_BIAS_SOLUTION = 0;
-    public static final int HEURISTIC_BIAS_GOOD_COUNT = 10;
-    public static final int HEURISTIC_BIAS_DISTANCE = 0;
-    public static final int HEURISTIC_BIAS_CRATE_SCORE = 0;
 
-    // These determine whether or not their effects on the heuristic value are inverted or not
-    // By default good crates are inverted because more of them means a smaller cost value
-    public static final boolean HEURISTIC_INVERT_SOLUTION = false;
-    public static final boolean HEURISTIC_INVERT_GOOD_COUNT = true;
-    public static final boolean HEURISTIC_INVERT_DISTANCE = false;
+    // The weights behind the cost of a state are kept by the map (see SokoCostModel)
+
+    // The moves a player can make; states store the index of theirs (two bits' worth)
+    private static final String MOVES = "urdl";
+
+    // How many bits each location takes up in a serial; enough for maps of up to 65536 cells
+    private static final int SERIAL_LOCATION_BITS = 16;
 
     // What state the state is in
     public enum StateStatus {
@@ -57,15 +40,10 @@ public class SokoState {
         PENDING,    // Keep trying!
     }
     
-    // A reference to actual crate objects
-    // We use these for convenience of computations
-    // These are indexed by their locations
-    private Map<Integer, SokoCrate> crates;
+    // The crates; shared with every state that only moved the player (see SokoLayout)
+    private SokoLayout layout;
 
     // Crate moves are the number of moves that have moved crates
-    // Think of crateCentroid as the vector sum of the locations of the crates.
-    private int crateCentroid = 0;
-    
     // Move-based heuristics
     private int crateMoveCount = 0;
     private int turnCount = 0;
@@ -74,64 +52,206 @@ public class SokoState {
     private int player;
 
     // The history of the state (what moves were taken to get there)
+    // Only the initial state stores it; every other state points to its parent and the move it took
+    // The full string is rebuilt from the chain of parents only when we actually need it
     private String history;
     private int moveCount;
+    private byte move;
+    private SokoState parent;
+
+    // How many times in a row the move was made (more than once when a crate is pushed down a tunnel)
+    private int pushLength = 1;
+
+    // The cached cost of the state (see getCost)
+    private int cost;
+    private boolean hasCost = false;
+
+    // The Zobrist hash of the crates and the player (see SokoMap.getHash)
+    // Children update their parent's hash instead of computing their own
+    private long hash;
 
     // The serial of the state
     // Should only be computed once
     private String stateSerial = null;
 
+    // The same, but with the player replaced by the smallest location it can walk to
+    // States whose players share the same area get the same normalized serial
+    private String normalizedSerial = null;
+    private int normalizedPlayer = -1;
+
     /**
      * Creates a new state object using only serialized data.
      * Note that this class only stores data that changes between states.
      * All other data are stored by the SokoGame class.
+     * This one is for the initial state, which has no parent.
+     * 
+     * @param   player          An integer representing the location of the player.
+     * @param   layout          The crates.
+     * @param   hash            The hash of the player and crates.
+     */
+    public SokoState(int player, SokoLayout layout, long hash) {
+
+        // Set the locations
+        this.player = player;
+        this.layout = layout;
+        this.hash = hash;
+
+        // Init the history
+        this.history = "";
+        this.moveCount = 0;
+        this.move = -1;
+        this.parent = null;
+    }
+
+    /**
+     * Creates a new state that follows another.
+     * The history of the state is not stored; it is rebuilt from the parent when requested.
+     * 
+     * @param   player          An integer representing the location of the player.
+     * @param   layout          The crates; the same object as the parent's if none moved.
+     * @param   crateMoved      Whether or not a crate was moved during this state.
+     * @param   turned          Whether or not the move changed the direction of the player.
+     * @param   hash            The hash of the player and crates.
+     * @param   parent          The state the move was performed on.
+     * @param   lastMove        The move performed by the player (a push, when searching over pushes).
+     * @param   historyLength   The length of the history of the state (walking included).
+     */
+    public SokoState(int player, SokoLayout layout, boolean crateMoved, boolean turned, long hash, SokoState parent, char lastMove, int historyLength) {
+        this(player, layout, crateMoved, turned, hash, parent, lastMove, historyLength, 1);
+    }
+
+    /**
+     * Creates a new state that follows another with the same move made a number of times in a row.
      * 
      * @param   player          An integer representing the location of the player.
-     * @param   crates          Integers representing the location of the crates.
+     * @param   layout          The crates; the same object as the parent's if none moved.
      * @param   crateMoved      Whether or not a crate was moved during this state.
-     * @param   map             The map that contextualizes the information of the player and crates.
-     * @param   history         The history of the state (what moves got us there).
-     * @param   historyLength   The length of the history of the state.
+     * @param   turned          Whether or not the move changed the direction of the player.
+     * @param   hash            The hash of the player and crates.
+     * @param   parent          The state the move was performed on.
+     * @param   lastMove        The move performed by the player (a push, when searching over pushes).
+     * @param   historyLength   The length of the history of the state (walking included).
+     * @param   pushLength      How many times the move was made.
      */
-    public SokoState(int player, int[] crates, boolean crateMoved, boolean turned, SokoMap map, String history, int historyLength) {
+    public SokoState(int player, SokoLayout layout, boolean crateMoved, boolean turned, long hash, SokoState parent, char lastMove, int historyLength, int pushLength) {
 
-        // Init the arrays
-        this.crates = new TreeMap<>();
+        // Init the counters
         if(crateMoved) this.crateMoveCount++;
         if(turned) this.turnCount++;
-        
+
         // Set the locations
         this.player = player;
+        this.layout = layout;
+        this.hash = hash;
 
         // Init the history
-        this.history = history;
+        this.history = null;
         this.moveCount = historyLength;
+        this.move = (byte) MOVES.indexOf(lastMove);
+        this.parent = parent;
+        this.pushLength = pushLength;
+    }
+
+    /**
+     * Returns the crates of the state.
+     * 
+     * @return  The crate layout.
+     */
+    public SokoLayout getLayout() {
+        return this.layout;
+    }
+
+    /**
+     * Returns the number of steps the player needs to walk to each cell without pushing anything.
+     * Cells the player can't reach are marked with -1.
+     * 
+     * @param   map     The map to walk on.
+     * @return          An array of walking distances, indexed by location.
+     */
+    public int[] getPlayerDistances(SokoMap map) {
+        return this.getPlayerDistances(this.player, map);
+    }
+
+    /**
+     * Same as above, but with the player starting somewhere else.
+     * 
+     * @param   start   Where the player starts.
+     * @param   map     The map to walk on.
+     * @return          An array of walking distances, indexed by location.
+     */
+    private int[] getPlayerDistances(int start, SokoMap map) {
+
+        // Init the distances
+        int[] distances = new int[map.getCellCount()];
+        int[] queue = new int[map.getCellCount()];
+        int head = 0, tail = 0;
+        Arrays.fill(distances, -1);
+
+        // Start from the player
+        distances[start] = 0;
+        queue[tail++] = start;
+
+        // Flood the map
+        while(head < tail) {
+            int location = queue[head++];
 
-        // Create the crates
-        for(int i = 0; i < crates.length; i++) {
-
-            // Grab the location of the crate
-            int crateLocation = crates[i];
-
-            // Add to the crate sum
-            this.crateCentroid += crateLocation; 
-
-            // Insert a crate into the hashmap
-            this.crates.put(
-                crateLocation,
-                SokoCrate
-                    .create(crateLocation)
-                    .setN(this.hasObstacle(crateLocation, Location.NORTH, map, crates))
-                    .setE(this.hasObstacle(crateLocation, Location.EAST, map, crates))
-                    .setW(this.hasObstacle(crateLocation, Location.WEST, map, crates))
-                    .setS(this.hasObstacle(crateLocation, Location.SOUTH, map, crates))
-                    .build());
+            for(int direction : map.getDirections()) {
+                int next = location + direction;
+
+                // Blocked or seen
+                if(this.getObstacle(location, direction, map) != ' ' || distances[next] >= 0)
+                    continue;
+
+                distances[next] = distances[location] + 1;
+                queue[tail++] = next;
+            }
         }
 
-        // Set the good crates
-        for(int goal : map.getGoalLocations())
-            if(this.crates.containsKey(goal))
-                this.crates.get(goal).setGood(true);
+        return distances;
+    }
+
+    /**
+     * Returns the moves the player needs to walk from its location to the target without pushing anything.
+     * 
+     * @param   target  The location to walk to.
+     * @param   map     The map to walk on.
+     * @return          A string of moves, or null if the target can't be reached.
+     */
+    public String getWalkPath(int target, SokoMap map) {
+        return this.getWalkPath(this.player, target, map);
+    }
+
+    /**
+     * Same as above, but with the player starting somewhere else.
+     * 
+     * @param   start   Where the player starts.
+     * @param   target  The location to walk to.
+     * @param   map     The map to walk on.
+     * @return          A string of moves, or null if the target can't be reached.
+     */
+    public String getWalkPath(int start, int target, SokoMap map) {
+
+        // Walk backwards from the target
+        int[] distances = this.getPlayerDistances(start, map);
+        if(distances[target] < 0)
+            return null;
+
+        // Each step goes to a neighbor exactly one step closer to the player
+        char[] path = new char[distances[target]];
+        int location = target;
+        while(distances[location] > 0) {
+            for(int direction : map.getDirections()) {
+                int previous = location - direction;
+
+                if(previous >= 0 && previous < distances.length && distances[previous] == distances[location] - 1) {
+                    path[distances[previous]] = map.getMove(direction);
+                    location = previous;
+                    break;
+                }
+            }
+        }
+
+        return new String(path);
     }
 
     /**
@@ -140,14 +260,7 @@ public class SokoState {
      * @return  The number of crates on goals.
      */
     private int getGoodCrateCount() {
-
-        // Count good crates
-        int goodCrateCount = 0;
-        for(SokoCrate crate : this.crates.values())
-            if(crate.isGood())
-                goodCrateCount++;
-            
-        return goodCrateCount;
+        return this.layout.getGoodCrateCount();
     }
 
     /**
@@ -157,13 +270,7 @@ public class SokoState {
      * @return              Whether or not crate exists at location.
      */
     private boolean hasCrate(int location) {
-        
-        // Damn this is O(1)
-        if(this.crates.containsKey(location))
-            return true;
-        
-        // No crate there
-        return false;
+        return this.layout.hasCrate(location);
     }
 
     /**
@@ -178,30 +285,6 @@ public class SokoState {
         return this.hasCrate(location + direction);
     }
 
-    /**
-     * Retrieves whether or not there's a wall or a crate adjacent to a cell.
-     * This version of the function is used during the constructor, since the crates have not yet been initialized.
-     * 
-     * @param   location    The location to start at.
-     * @param   direction   The direction of the neighbor to inspect.
-     * @param   map         The map to use.
-     * @param   crates      A list of crates; specified during init.
-     * @return              Whether or not there is an obstacle there.
-     */
-    private boolean hasObstacle(int location, int direction, SokoMap map, int[] crates) {
-        
-        // Check for wall
-        if(map.hasWall(location, direction))
-            return true;
-
-        // Check for crate
-        for(int crate : crates)
-            if(crate == location + direction)
-                return true;
-        
-        return false;
-    }
-    
     /**
      * Retrieves whether or not there's a wall or a crate adjacent to a cell.
      * 
@@ -225,99 +308,34 @@ public class SokoState {
 
     /**
      * Determines the status of the state.
+     * Only the crates matter, so this is worked out once per layout.
      * 
      * @param   map     The map to check the state with.
      * @return          An enum indicating what status the state is in.
      */
     public StateStatus getStatus(SokoMap map) {
-        
-        // All crates are stuck
-        boolean allCratesAreStuck = true;
-        boolean allCratesAreGood = true;
-        
-        // Stores a list of unstuck crates
-        Set<Integer> unstuckCrates = new TreeSet<>();
-        Set<Integer> visitedCrates = new TreeSet<>();
-        Collection<SokoCrate> crateCollection = this.crates.values();
-
-        // Check if all the goals have crates
-        for(SokoCrate crate : crateCollection) {
-
-            // Good crates
-            if(!crate.isGood())
-                allCratesAreGood = false;
-
-            // Preprocess unstuck crates
-            if(!crate.isStuck()) 
-                unstuckCrates.add(crate.getLocation());
-        }
-
-        // We won!
-        // It is important to check for this condition first
-        // because crates can be stuck in a winning state
-        if(allCratesAreGood)
-            return StateStatus.WON;
-
-        // Check if at least one crate entered a non-passable cell
-        for(SokoCrate crate : crateCollection)
-            if(!map.isPassable(crate.getLocation()))
-                return StateStatus.LOST;
-
-        // Check if all crates are at least temporarily stuck
-        for(SokoCrate crate : crateCollection) 
-            if(!crate.isStuck())
-                allCratesAreStuck = false;
-
-        // Check if crates are stuck in groups
-        for(SokoCrate crate : crateCollection)
-            if(!visitedCrates.contains(crate.getLocation()))
-                if(crate.isStuckInAGroup(this.crates, unstuckCrates, visitedCrates))
-                    return StateStatus.LOST;
-
-        // No more moves for this state
-        if(allCratesAreStuck)
-            return StateStatus.LOST;
-
-        // Still more to do
-        return StateStatus.PENDING;
+        return this.layout.getStatus(map);
     }
 
     /**
      * Returns a crate we can use to test stuff.
      * 
      * @param   location    The location of the crate.
+     * @param   map         The map the crate is on.
      * @return              Crate object or null if not found.
      */
-    public SokoCrate getCrate(int location) {
-        if(!this.hasCrate(location))
-            return null;
-        return this.crates.get(location);
+    public SokoCrate getCrate(int location, SokoMap map) {
+        return this.layout.getCrate(location, map);
     }
 
     /**
-     * Returns a crate we can use to test stuff.
-     * 
-     * @param   location    The location of the crate.
-     * @return              Crate object or null if not found.
-     */
-    public SokoCrate getCrate(int location, int direction) {
-        if(!this.hasCrate(location, direction))
-            return null;
-        return this.crates.get(location + direction);
-    }
-
-    /**
-     * Returns the crate locations.
+     * Returns the crate locations, in increasing order.
+     * The array belongs to the layout, so it must not be modified.
      * 
      * @return  An array containing the crate locations.
      */
     public int[] getCrateLocations() {
-
-        // Overwrite null value
-        return this.crates.keySet()
-            .stream()
-            .mapToInt(i -> i)
-            .toArray();
+        return this.layout.getCrateLocations();
     }
 
     /**
@@ -326,13 +344,30 @@ public class SokoState {
      * @return  The last move performed.
      */
     public char getLastMove() {
-        
+
         // No moves yet
-        if(this.moveCount <= 0)
+        if(this.move < 0)
             return '!';
-            
-        // Get last move
-        return this.history.charAt(this.moveCount - 1);
+
+        return MOVES.charAt(this.move);
+    }
+
+    /**
+     * Returns how many times in a row the last move was made.
+     * 
+     * @return  The number of pushes (or steps) the last move took.
+     */
+    public int getPushLength() {
+        return this.pushLength;
+    }
+
+    /**
+     * Returns the state the last move was made on.
+     * 
+     * @return  The parent, or null for the initial state.
+     */
+    public SokoState getParent() {
+        return this.parent;
     }
 
     /**
@@ -346,13 +381,71 @@ public class SokoState {
 
     /**
      * Return the history of the state.
+     * This is rebuilt from the chain of parents, so it should only be asked of the final state.
+     * When searching over pushes, the walking in between pushes is filled in too.
      * 
-     * @return  A string representing the moves taken by the player to get to that state.
+     * @param   map     The map to walk on.
+     * @return          A string representing the moves taken by the player to get to that state.
      */
-    public String getHistory() {
+    public String getHistory(SokoMap map) {
+
+        // Already known
+        if(this.history != null)
+            return this.history;
+
+        // Walk back up to the nearest state that knows its history
+        List<SokoState> states = new ArrayList<>();
+        SokoState ancestor = this;
+        while(ancestor.history == null) {
+            states.add(ancestor);
+            ancestor = ancestor.parent;
+        }
+
+        // Replay the moves from there
+        StringBuilder history = new StringBuilder(this.moveCount);
+        history.append(ancestor.history);
+        for(int i = states.size() - 1; i >= 0; i--) {
+            SokoState state = states.get(i);
+            char move = state.getLastMove();
+            int moveFrom = state.player - map.getDirection(move) * state.pushLength;
+
+            // Walk up to where the move was made from, if the player isn't there already
+            if(state.parent.player != moveFrom)
+                history.append(state.parent.getWalkPath(moveFrom, map));
+
+            for(int j = 0; j < state.pushLength; j++)
+                history.append(move);
+        }
+
+        this.history = history.toString();
         return this.history;
     }
 
+    /**
+     * Returns the moves that undo the pulls that led to this state, played forwards as pushes.
+     * Only meaningful for states made by SokoStateFactory.createNextPullStates; the walking
+     * between pushes is filled in, so the result ends with every crate back where the pulls started.
+     * 
+     * @param   start   Where the player is before the first push; must be able to walk to this state's player.
+     * @param   map     The map to walk on.
+     * @return          A string representing the moves.
+     */
+    public String getPullHistory(int start, SokoMap map) {
+        StringBuilder history = new StringBuilder();
+        int player = start;
+
+        for(SokoState state = this; state.parent != null; state = state.parent) {
+            int direction = map.getDirection(state.getLastMove());
+
+            // Walk to where the pull ended, then push the crate back
+            history.append(state.getWalkPath(player, state.player, map));
+            history.append(map.getMove(-direction));
+            player = state.player - direction;
+        }
+
+        return history.toString();
+    }
+
     /**
      * Return the length of the history.
      * 
@@ -381,26 +474,29 @@ public class SokoState {
     }
 
     /**
-     * Updates the serials for the object.
+     * Computes a serial for the crates of the state and the given player location.
+     * 
+     * @param   player  The player location to encode.
+     * @return          The serial.
      */
-    private void computeSerial() {
+    private String computeSerial(int player) {
                
         // The serial
         long number = 0;
         short count = 0;
-        int packingSize = 64 / (Location.maskLength << 1);
+        int packingSize = 64 / SERIAL_LOCATION_BITS;
 
         // So we can convert to bigint
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         DataOutputStream dos = new DataOutputStream(baos);
 
         // Serialize the state
-        number += this.player;
+        number += player;
         count += 1;
         
         // Encode the crates
-        for(int crate : this.crates.keySet()) {
-            number <<= (Location.maskLength << 1);
+        for(int crate : this.getCrateLocations()) {
+            number <<= SERIAL_LOCATION_BITS;
             number += crate;
             count += 1;
 
@@ -430,7 +526,7 @@ public class SokoState {
         }
 
         // Convert to bigint
-        this.stateSerial = Base64.getEncoder().encodeToString(baos.toByteArray());
+        return Base64.getEncoder().encodeToString(baos.toByteArray());
     }
 
     /**
@@ -446,86 +542,180 @@ public class SokoState {
             return this.stateSerial;
 
         // Update serials
-        this.computeSerial();
+        this.stateSerial = this.computeSerial(this.player);
 
         // Return
         return this.stateSerial;
     }
 
+    /**
+     * Returns the hash of the state.
+     * Cheaper to compare than the serial, but two different states may (rarely) share one.
+     * 
+     * @return  The Zobrist hash of the crates and the player.
+     */
+    public long getHash() {
+        return this.hash;
+    }
+
+    /**
+     * Like the hash, but with the player moved to the representative of its area.
+     * See getNormalizedSerial for when this is meaningful.
+     * 
+     * @param   map     The map to walk on.
+     * @return          The hash of the crates and the area of the player.
+     */
+    public long getNormalizedHash(SokoMap map) {
+        return this.hash 
+            ^ map.getPlayerKey(this.player) 
+            ^ map.getPlayerKey(this.getNormalizedPlayer(map));
+    }
+
+    /**
+     * Returns the smallest location the player can walk to without pushing anything.
+     * This is the same for every player location inside the same area.
+     * 
+     * @param   map     The map to walk on.
+     * @return          A location that represents the area of the player.
+     */
+    public int getNormalizedPlayer(SokoMap map) {
+
+        // Already computed
+        if(this.normalizedPlayer >= 0)
+            return this.normalizedPlayer;
+
+        // The first reachable location wins
+        int[] distances = this.getPlayerDistances(map);
+        for(int location = 0; location < distances.length; location++) {
+            if(distances[location] >= 0) {
+                this.normalizedPlayer = location;
+                break;
+            }
+        }
+
+        return this.normalizedPlayer;
+    }
+
+    /**
+     * Like the serial, but the exact player location is replaced by the area the player is in.
+     * Two states with the same crates where the players can walk to each other are then the same.
+     * Only meaningful when walking isn't part of the search (see SokoSolver.SearchMode.PUSH).
+     * 
+     * @param   map     The map to walk on.
+     * @return          A serial that represents the crates and the area of the player.
+     */
+    public String getNormalizedSerial(SokoMap map) {
+
+        // If it's already defined
+        if(this.normalizedSerial != null)
+            return this.normalizedSerial;
+
+        // Update serials
+        this.normalizedSerial = this.computeSerial(this.getNormalizedPlayer(map));
+
+        return this.normalizedSerial;
+    }
+
     /**
      * Returns an estimate of the cost of the state.
      * Higher cost means less priority.
      * Note that we use integers so things are computed much faster.
+     * The cost is only ever computed once; the queue asks for it a lot.
+     * With a matching estimate, this is the history so far plus the pushes left (see SokoLayout.getMatchingCost).
      * 
      * @return  The estimate of the cost for the state.
      */
     public int getCost(SokoMap map) {
 
+        // Already computed
+        if(this.hasCost)
+            return this.cost;
+
+        this.cost = this.computeCost(map);
+        this.hasCost = true;
+
+        return this.cost;
+    }
+
+    /**
+     * Forgets the cost computed by getCost, so that it's computed again with the current cost model.
+     * Only do this for states that aren't in a queue; the queue wouldn't know about the change.
+     */
+    public void clearCost() {
+        this.hasCost = false;
+    }
+
+    /**
+     * Computes the estimate returned by getCost.
+     * 
+     * @param   map     The map that contextualizes the cost.
+     * @return          The estimate of the cost for the state.
+     */
+    private int computeCost(SokoMap map) {
+        SokoCostModel model = map.getCostModel();
+
+        // The history so far plus the pushes we still need
+        if(map.getCostEstimate() != SokoMap.CostEstimate.CENTROID)
+            return (int) (this.getHHeuristicFactor(map) 
+                + this.layout.getMatchingCost(map) * model.getMatchingWeight());
+
         // The crate-based heuritic
-        int crateCount = this.crates.size();
-        int crateC = this.crateCentroid;
-        int goalC = map.getGoalCentroid();
-        int cx = Location.decodeX(crateC) - Location.decodeX(goalC); 
-        int cy = Location.decodeY(crateC) - Location.decodeY(goalC); 
-
-        // Let's see how this does
-        // ! fail
-        // float crateCost = 0;
-        // for(int crate : this.crates.keySet())
-        //     crateCost += map.getCellCost(crate, this.crates.keySet());
-        
+        int crateCount = this.layout.getCrateCount();
+        int cx = this.layout.getCrateCentroidX() - map.getGoalCentroidX(); 
+        int cy = this.layout.getCrateCentroidY() - map.getGoalCentroidY(); 
+
         // C represents the approximate "distance" of all crates from the goals
         float c = (cx * cx + cy * cy) / (crateCount * crateCount);
 
         // History length and successful crate placements
         float h = 
-            +this.moveCount * HEURISTIC_WEIGHT_MOVE_COUNT + 
-            +this.turnCount * HEURISTIC_WEIGHT_TURN_COUNT + 
-            +this.crateMoveCount * HEURISTIC_WEIGHT_CRATE_MOVE_COUNT;
+            +this.moveCount * model.getMoveCountWeight() + 
+            +this.turnCount * model.getTurnCountWeight() + 
+            +this.crateMoveCount * model.getCrateMoveCountWeight();
         
         // Number of good crates
         float g = this.getGoodCrateCount();
 
         float cHeuristic = Heuristic.weight(
-            HEURISTIC_INVERT_DISTANCE
-                ? Heuristic.invert(Heuristic.bias(c, HEURISTIC_BIAS_DISTANCE))
-                : Heuristic.bias(c, HEURISTIC_BIAS_DISTANCE),
-            HEURISTIC_WEIGHT_DISTANCE
+            model.isDistanceInverted()
+                ? Heuristic.invert(Heuristic.bias(c, model.getDistanceBias()))
+                : Heuristic.bias(c, model.getDistanceBias()),
+            model.getDistanceWeight()
         );
 
         float hHeuristic = Heuristic.weight(
-            HEURISTIC_INVERT_SOLUTION 
-                ? -Heuristic.bias(h, HEURISTIC_BIAS_SOLUTION)
-                : Heuristic.bias(h, HEURISTIC_BIAS_SOLUTION),
-            HEURISTIC_WEIGHT_SOLUTION
+            model.isSolutionInverted() 
+                ? -Heuristic.bias(h, model.getSolutionBias())
+                : Heuristic.bias(h, model.getSolutionBias()),
+            model.getSolutionWeight()
         );
 
         float gHeuristic = Heuristic.weight(
-            HEURISTIC_INVERT_GOOD_COUNT 
-                ? Heuristic.invert(Heuristic.bias(g, HEURISTIC_BIAS_GOOD_COUNT))
-                : Heuristic.bias(g, HEURISTIC_BIAS_GOOD_COUNT),
-            HEURISTIC_WEIGHT_GOOD_COUNT
+            model.isGoodCountInverted() 
+                ? Heuristic.invert(Heuristic.bias(g, model.getGoodCountBias()))
+                : Heuristic.bias(g, model.getGoodCountBias()),
+            model.getGoodCountWeight()
         );
 
         return (int) (hHeuristic * gHeuristic * cHeuristic);
     }
 
     public float getCHeuristicFactor(SokoMap map){
+        SokoCostModel model = map.getCostModel();
+
         // The crate-based heuritic
-        int crateCount = this.crates.size();
-        int crateC = this.crateCentroid;
-        int goalC = map.getGoalCentroid();
-        int cx = Location.decodeX(crateC) - Location.decodeX(goalC); 
-        int cy = Location.decodeY(crateC) - Location.decodeY(goalC); 
+        int crateCount = this.layout.getCrateCount();
+        int cx = this.layout.getCrateCentroidX() - map.getGoalCentroidX(); 
+        int cy = this.layout.getCrateCentroidY() - map.getGoalCentroidY(); 
 
         // C represents the approximate "distance" of all crates from the goals
         float c = (cx * cx + cy * cy) / (crateCount * crateCount);
 
         float cHeuristic = Heuristic.weight(
-            HEURISTIC_INVERT_DISTANCE
-                ? Heuristic.invert(Heuristic.bias(c, HEURISTIC_BIAS_DISTANCE))
-                : Heuristic.bias(c, HEURISTIC_BIAS_DISTANCE),
-            HEURISTIC_WEIGHT_DISTANCE
+            model.isDistanceInverted()
+                ? Heuristic.invert(Heuristic.bias(c, model.getDistanceBias()))
+                : Heuristic.bias(c, model.getDistanceBias()),
+            model.getDistanceWeight()
         );
 
         return cHeuristic;
@@ -533,32 +723,36 @@ public class SokoState {
 
     
     public float getHHeuristicFactor(SokoMap map){
+        SokoCostModel model = map.getCostModel();
+
         // History length and successful crate placements
         float h = 
-            +this.moveCount * HEURISTIC_WEIGHT_MOVE_COUNT + 
-            +this.turnCount * HEURISTIC_WEIGHT_TURN_COUNT + 
-            +this.crateMoveCount * HEURISTIC_WEIGHT_CRATE_MOVE_COUNT;
+            +this.moveCount * model.getMoveCountWeight() + 
+            +this.turnCount * model.getTurnCountWeight() + 
+            +this.crateMoveCount * model.getCrateMoveCountWeight();
         
 
         float hHeuristic = Heuristic.weight(
-            HEURISTIC_INVERT_SOLUTION 
-                ? -Heuristic.bias(h, HEURISTIC_BIAS_SOLUTION)
-                : Heuristic.bias(h, HEURISTIC_BIAS_SOLUTION),
-            HEURISTIC_WEIGHT_SOLUTION
+            model.isSolutionInverted() 
+                ? -Heuristic.bias(h, model.getSolutionBias())
+                : Heuristic.bias(h, model.getSolutionBias()),
+            model.getSolutionWeight()
         );
 
         return hHeuristic;
     }
 
     public float getGHeuristicFactor(SokoMap map){ 
+        SokoCostModel model = map.getCostModel();
+
         // Number of good crates
         float g = this.getGoodCrateCount();
 
         float gHeuristic = Heuristic.weight(
-            HEURISTIC_INVERT_GOOD_COUNT 
-                ? Heuristic.invert(Heuristic.bias(g, HEURISTIC_BIAS_GOOD_COUNT))
-                : Heuristic.bias(g, HEURISTIC_BIAS_GOOD_COUNT),
-            HEURISTIC_WEIGHT_GOOD_COUNT
+            model.isGoodCountInverted() 
+                ? Heuristic.invert(Heuristic.bias(g, model.getGoodCountBias()))
+                : Heuristic.bias(g, model.getGoodCountBias()),
+            model.getGoodCountWeight()
         );
 
         return gHeuristic;
@@ -0,0 +1,215 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 11:02:15
+ * @ Modified time: 2026-10-17 11:02:15
+ * @ Description:
+ *
+ * A queue of states ordered by cost, like a priority queue with the state comparator.
+ * Since costs are integers, states are kept in one bucket per cost instead of a heap.
+ * Pushing and popping are O(1), apart from skipping over empty buckets.
+ */
+
+package solver.SokoStateObjects;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class SokoStateBucketQueue extends AbstractQueue<SokoState> {
+
+    // Initial sizes of the bucket array and of each bucket
+    private static final int INITIAL_BUCKET_COUNT = 64;
+    private static final int INITIAL_BUCKET_SIZE = 8;
+
+    // Hold a reference to the map needed to contextualize costs
+    private SokoMap map;
+
+    // The buckets; bucket i holds the states with cost (base + i)
+    // Each bucket is a stack, so the latest state among equal costs comes out first
+    private SokoState[][] buckets;
+    private int[] bucketSizes;
+    private int base;
+
+    // No bucket below this one has states
+    private int minBucket;
+
+    // Total number of states queued
+    private int size;
+
+    /**
+     * Creates an empty queue.
+     *
+     * @param   map     The map to use for computing costs.
+     */
+    public SokoStateBucketQueue(SokoMap map) {
+        this.map = map;
+        this.buckets = new SokoState[INITIAL_BUCKET_COUNT][];
+        this.bucketSizes = new int[INITIAL_BUCKET_COUNT];
+        this.minBucket = INITIAL_BUCKET_COUNT;
+        this.size = 0;
+    }
+
+    /**
+     * Makes sure there's a bucket for the given cost.
+     * Shifts the buckets up if the cost is below every cost seen so far.
+     *
+     * @param   cost    The cost to make room for.
+     * @return          The index of the bucket for that cost.
+     */
+    private int getBucket(int cost) {
+
+        // First state decides the base
+        if(this.size == 0 && this.minBucket == this.buckets.length) {
+            this.base = cost;
+            return 0;
+        }
+
+        // Cost below the base; move everything up
+        if(cost < this.base) {
+            int shift = this.base - cost;
+            this.resize(this.buckets.length + shift, shift);
+            this.base = cost;
+        }
+
+        // Cost beyond the last bucket
+        int index = cost - this.base;
+        if(index >= this.buckets.length)
+            this.resize(Math.max(index + 1, this.buckets.length << 1), 0);
+
+        return index;
+    }
+
+    /**
+     * Grows the bucket array.
+     *
+     * @param   length  The new number of buckets.
+     * @param   shift   How far up the existing buckets move.
+     */
+    private void resize(int length, int shift) {
+        SokoState[][] buckets = new SokoState[length][];
+        int[] bucketSizes = new int[length];
+
+        System.arraycopy(this.buckets, 0, buckets, shift, this.buckets.length);
+        System.arraycopy(this.bucketSizes, 0, bucketSizes, shift, this.bucketSizes.length);
+
+        // The "no states" marker follows the end of the array
+        this.minBucket = this.minBucket >= this.buckets.length
+            ? length
+            : this.minBucket + shift;
+
+        this.buckets = buckets;
+        this.bucketSizes = bucketSizes;
+    }
+
+    /**
+     * Adds a state to the queue.
+     *
+     * @param   state   The state to add.
+     * @return          Always true.
+     */
+    @Override
+    public boolean offer(SokoState state) {
+        int index = this.getBucket(state.getCost(this.map));
+
+        // Create or grow the bucket
+        SokoState[] bucket = this.buckets[index];
+        if(bucket == null)
+            bucket = this.buckets[index] = new SokoState[INITIAL_BUCKET_SIZE];
+        else if(this.bucketSizes[index] == bucket.length)
+            bucket = this.buckets[index] = Arrays.copyOf(bucket, bucket.length << 1);
+
+        // Push onto the bucket
+        bucket[this.bucketSizes[index]++] = state;
+        this.minBucket = Math.min(this.minBucket, index);
+        this.size++;
+
+        return true;
+    }
+
+    /**
+     * Moves the min bucket up to the first one that isn't empty.
+     */
+    private void skipEmptyBuckets() {
+        while(this.minBucket < this.buckets.length && this.bucketSizes[this.minBucket] == 0)
+            this.minBucket++;
+    }
+
+    /**
+     * Removes and returns the state with the lowest cost.
+     *
+     * @return  The state, or null if the queue is empty.
+     */
+    @Override
+    public SokoState poll() {
+        if(this.size == 0)
+            return null;
+
+        this.skipEmptyBuckets();
+
+        // Pop from the bucket; drop the reference so it can be collected
+        SokoState[] bucket = this.buckets[this.minBucket];
+        int top = --this.bucketSizes[this.minBucket];
+        SokoState state = bucket[top];
+        bucket[top] = null;
+        this.size--;
+
+        return state;
+    }
+
+    /**
+     * Returns the state with the lowest cost without removing it.
+     *
+     * @return  The state, or null if the queue is empty.
+     */
+    @Override
+    public SokoState peek() {
+        if(this.size == 0)
+            return null;
+
+        this.skipEmptyBuckets();
+
+        return this.buckets[this.minBucket][this.bucketSizes[this.minBucket] - 1];
+    }
+
+    /**
+     * Returns the number of states queued.
+     *
+     * @return  The size of the queue.
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Iterates over the queued states, in no particular order.
+     *
+     * @return  An iterator over the states.
+     */
+    @Override
+    public Iterator<SokoState> iterator() {
+        return new Iterator<SokoState>() {
+            private int bucket = 0;
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                while(this.bucket < buckets.length && this.index >= bucketSizes[this.bucket]) {
+                    this.bucket++;
+                    this.index = 0;
+                }
+
+                return this.bucket < buckets.length;
+            }
+
+            @Override
+            public SokoState next() {
+                if(!this.hasNext())
+                    throw new NoSuchElementException();
+
+                return buckets[this.bucket][this.index++];
+            }
+        };
+    }
+}
@@ -9,21 +9,13 @@
 
 package solver.SokoStateObjects;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 
-import solver.SokoObjects.SokoCrate;
-import solver.utils.Location;
+import solver.utils.Matching;
 
 public class SokoStateFactory {
 
-    // A mapping from directions to moves
-    private static Map<Integer, Character> DIRECTION_TO_MOVE_MAP = Map.of(
-        Location.NORTH, 'u',
-        Location.EAST, 'r',
-        Location.WEST, 'l',
-        Location.SOUTH, 'd'
-    );
-    
     /**
      * Creates an initial state with no history.
      * 
@@ -32,56 +24,364 @@ public class SokoStateFactory {
      * @param   map         The map that contextualizes the information of the player and crates.
      */
     public static SokoState createInitialState(int player, int[] crates, SokoMap map) {
-        return new SokoState(player, crates, false, false, map, "", 0);
+        return new SokoState(player, new SokoLayout(crates, map), map.getHash(player, crates));
     }
 
     /**
-     * Creates an new state with inherited history.
+     * Creates an new state that follows the current state.
      * 
+     * @param   currentState    The state the move is performed on.
      * @param   player          An integer representing the location of the player.
-     * @param   crates          Integers representing the location of the crates.
-     * @param   map             The map that contextualizes the information of the player and crates.
-     * @param   history         The history of moves for that state.
-     * @param   historyLength   The length of the history for that state.
+     * @param   layout          The crates of the new state.
+     * @param   hash            The hash of the new state.
      * @param   move            A new move by the player.
-     * @param   lastMove        The previous move.
      */
-    private static SokoState createMoveState(int player, int[] crates, SokoMap map, String history, int historyLength, char move, char lastMove) {
+    private static SokoState createMoveState(SokoState currentState, int player, SokoLayout layout, long hash, char move) {
         return new SokoState(
-            player,             // Player location
-            crates,             // Crate locations
-            false,              // A crate was moved
-            move != lastMove,   // A 'turn' occurred
-            map,                // The map reference
-            history + move,     // New string of moves
-            historyLength + 1   // Current history length
+            player,                             // Player location
+            layout,                             // Crate locations
+            false,                              // A crate was moved
+            move != currentState.getLastMove(), // A 'turn' occurred
+            hash,                               // The hash of the new state
+            currentState,                       // Parent, so history can be rebuilt
+            move,                               // The move itself
+            currentState.getMoveCount() + 1     // Current history length
         );
     }
 
     /**
-     * Creates an new state with inherited history.
+     * Creates an new state that follows the current state.
      * This differs from the method above in that a crate moved during this state.
      * 
+     * @param   currentState    The state the move is performed on.
      * @param   player          An integer representing the location of the player.
-     * @param   crates          Integers representing the location of the crates.
-     * @param   map             The map that contextualizes the information of the player and crates.
-     * @param   history         The history of moves for that state.
-     * @param   historyLength   The length of the history for that state.
+     * @param   layout          The crates of the new state.
+     * @param   hash            The hash of the new state.
      * @param   move            A new move by the player.
-     * @param   lastMove        The previous move.
      */
-    private static SokoState createMoveStateWCrate(int player, int[] crates, SokoMap map, String history, int historyLength, char move, char lastMove) {
+    private static SokoState createMoveStateWCrate(SokoState currentState, int player, SokoLayout layout, long hash, char move) {
         return new SokoState(
-            player,             // Player location
-            crates,             // Crate locations
-            true,               // A crate was moved
-            move != lastMove,   // A 'turn' occurred
-            map,                // The map reference
-            history + move,     // New string of moves
-            historyLength + 1   // Current history length
+            player,                             // Player location
+            layout,                             // Crate locations
+            true,                               // A crate was moved
+            move != currentState.getLastMove(), // A 'turn' occurred
+            hash,                               // The hash of the new state
+            currentState,                       // Parent, so history can be rebuilt
+            move,                               // The move itself
+            currentState.getMoveCount() + 1     // Current history length
         );
     }
 
+    /**
+     * Creates a new state where the player walked up to a crate and pushed it, maybe more than once.
+     * 
+     * @param   currentState    The state the push is performed on.
+     * @param   layout          The crates after the push.
+     * @param   crate           The location of the crate before the push.
+     * @param   pushDirection   The direction of the push.
+     * @param   pushLength      How many times the crate was pushed.
+     * @param   walkLength      How many steps the player walked before pushing.
+     * @param   map             The map that contextualizes the push.
+     * @return                  The state after the push.
+     */
+    private static SokoState createPushState(SokoState currentState, SokoLayout layout, int crate, int pushDirection, int pushLength, int walkLength, SokoMap map) {
+        char move = map.getMove(pushDirection);
+        int pushTo = crate + pushDirection * pushLength;
+
+        // Player ends right behind the crate
+        long hash = currentState.getHash()
+            ^ map.getPlayerKey(currentState.getPlayer()) ^ map.getPlayerKey(pushTo - pushDirection)
+            ^ map.getCrateKey(crate) ^ map.getCrateKey(pushTo);
+
+        return new SokoState(
+            pushTo - pushDirection,                                     // Player ends behind the crate
+            layout,                                                     // Crate locations
+            true,                                                       // A crate was moved
+            move != currentState.getLastMove(),                         // A 'turn' occurred
+            hash,                                                       // The hash of the new state
+            currentState,                                               // Parent, so history can be rebuilt
+            move,                                                       // The push itself
+            currentState.getMoveCount() + walkLength + pushLength,      // Walking plus the pushes
+            pushLength                                                  // How many pushes
+        );
+    }
+
+    /**
+     * Takes a crate that was just pushed onto the entrance of the goal room to the next goal in the
+     * packing order (see SokoGoalRoom), as if the pushes were a single one.
+     * The states in between are kept as parents, so the history still has every push,
+     * but only the last one is returned.
+     * 
+     * @param   currentState    The state right after the push.
+     * @param   crate           Where the crate was before the push.
+     * @param   pushTo          Where the push left the crate.
+     * @param   map             The map that contextualizes the pushes.
+     * @return                  The state with the crate on its goal, or null if it can't be done.
+     */
+    private static SokoState createRoomState(SokoState currentState, int crate, int pushTo, SokoMap map) {
+        SokoGoalRoom room = map.getGoalRoom();
+
+        // This push didn't end on the entrance, or came out of the room
+        // A crate already sitting on the entrance is left alone; pushing it in is a push of its own
+        if(room == null || pushTo != room.getEntrance() || room.isInRoom(crate))
+            return null;
+
+        // The room has to be filled in order so far
+        int filled = room.getFilledCount(currentState.getLayout());
+        if(filled < 0)
+            return null;
+
+        // Push the crate along, checking each push against the crates actually there
+        SokoState state = currentState;
+        int location = room.getEntrance();
+        for(int direction : room.getPushes(filled)) {
+            int[] distances = state.getPlayerDistances(map);
+            int pushFrom = location - direction;
+
+            if(distances[pushFrom] < 0 || state.getObstacle(location, direction, map) != ' ')
+                return null;
+
+            state = SokoStateFactory.createPushState(
+                state, 
+                state.getLayout().moveCrate(location, location + direction, map), 
+                location, 
+                direction, 
+                1, 
+                distances[pushFrom], 
+                map);
+            location += direction;
+        }
+
+        // The crates can't all get a goal anymore
+        if(state.getLayout().getMatchingCost(map) == Matching.INFEASIBLE)
+            return null;
+
+        return state;
+    }
+
+    /**
+     * Finds the crates of a PI-corral, if there is one.
+     * A corral is an area the player can't walk into, along with the crates around it; here,
+     * corrals touching through a crate count as one. If every push the player can make on its
+     * crates goes into the corral (I), and at least one of them isn't on a goal, then any solution
+     * has to push one of those crates before anything else matters, and we might as well do it
+     * now. Since the corral is closed off, the player can't get behind its crates from the inside
+     * either, so every push into the corral can be made from where the player is (P).
+     * If there are a few, the one with the fewest pushes is picked.
+     * 
+     * @param   currentState    The state to look at.
+     * @param   distances       Where the player can walk to (see SokoState.getPlayerDistances).
+     * @param   map             The map to contextualize the corrals.
+     * @return                  Which locations hold a crate of the corral, or null if there's none.
+     */
+    private static boolean[] getCorralCrates(SokoState currentState, int[] distances, SokoMap map) {
+        int[] crates = currentState.getCrateLocations();
+        int[] corrals = new int[distances.length];
+        int[] queue = new int[distances.length];
+        int bestCorral = 0;
+        int bestPushCount = Integer.MAX_VALUE;
+
+        // Label each corral, starting from the crates; 0 means not labelled yet
+        int label = 0;
+        for(int start : crates) {
+            if(corrals[start] != 0)
+                continue;
+
+            // Flood everything the player can't get to, crates included
+            int head = 0, tail = 0;
+            corrals[start] = ++label;
+            queue[tail++] = start;
+            while(head < tail) {
+                int location = queue[head++];
+
+                for(int direction : map.getDirections()) {
+                    int next = location + direction;
+
+                    if(map.hasWall(location, direction) || distances[next] >= 0 || corrals[next] != 0)
+                        continue;
+
+                    corrals[next] = label;
+                    queue[tail++] = next;
+                }
+            }
+
+            // Check the pushes the player can make on the crates of the corral
+            boolean isInward = true;
+            boolean isSolved = true;
+            int pushCount = 0;
+            for(int i = 0; i < tail && isInward; i++) {
+                int crate = queue[i];
+                if(!currentState.getLayout().hasCrate(crate))
+                    continue;
+
+                if(!map.hasGoal(crate))
+                    isSolved = false;
+
+                for(int direction : map.getDirections()) {
+                    int pushFrom = crate - direction;
+                    int pushTo = crate + direction;
+
+                    // Can't push that way, or it would be game over anyway
+                    if(pushFrom < 0 || pushFrom >= distances.length || distances[pushFrom] < 0 ||
+                        currentState.getObstacle(crate, direction, map) != ' ' || !map.isPassable(pushTo))
+                        continue;
+
+                    // The crate would leave the corral
+                    if(distances[pushTo] >= 0) {
+                        isInward = false;
+                        break;
+                    }
+
+                    pushCount++;
+                }
+            }
+
+            // Keep the one with the least to try
+            if(isInward && !isSolved && pushCount < bestPushCount) {
+                bestCorral = label;
+                bestPushCount = pushCount;
+            }
+        }
+
+        // No corral to open
+        if(bestCorral == 0)
+            return null;
+
+        // Mark its crates
+        boolean[] corralCrates = new boolean[distances.length];
+        for(int crate : crates)
+            corralCrates[crate] = corrals[crate] == bestCorral;
+
+        return corralCrates;
+    }
+
+    /**
+     * Creates all the states reachable from the current state with a single crate push.
+     * The player may walk anywhere it can reach before pushing; the walking isn't stored.
+     * 
+     * @param   currentState    The current state to push from.
+     * @param   map             The map to contextualize the pushes.
+     * @return                  The valid states after one push.
+     */
+    public static List<SokoState> createNextPushStates(SokoState currentState, SokoMap map) {
+
+        // Where the player can walk to
+        int[] distances = currentState.getPlayerDistances(map);
+        int[] crates = currentState.getCrateLocations();
+        List<SokoState> nextStates = new ArrayList<>();
+
+        // If some corral has to be opened first, only its crates matter
+        boolean[] corral = SokoStateFactory.getCorralCrates(currentState, distances, map);
+
+        // Try pushing every crate in every direction
+        for(int i = 0; i < crates.length; i++) {
+            for(int direction : map.getDirections()) {
+                int crate = crates[i];
+                int pushFrom = crate - direction;
+
+                // Outside the corral we're opening
+                if(corral != null && !corral[crate])
+                    continue;
+
+                // Player can't get behind the crate
+                if(pushFrom < 0 || pushFrom >= distances.length || distances[pushFrom] < 0)
+                    continue;
+
+                // Crate is obstructed
+                if(currentState.getObstacle(crate, direction, map) != ' ')
+                    continue;
+
+                // Crate would never leave that cell
+                if(!map.isPassable(crate + direction))
+                    continue;
+
+                // Inside a tunnel, the crate may as well keep going until it's out (or on a goal)
+                // Otherwise the player would just come back to push it again
+                int pushTo = crate + direction;
+                while(map.isTunnel(pushTo - direction, direction) && map.isTunnel(pushTo, direction) && 
+                    !map.hasGoal(pushTo) && 
+                    currentState.getObstacle(pushTo, direction, map) == ' ' && 
+                    map.isPassable(pushTo + direction))
+                    pushTo += direction;
+
+                // Otherwise, move crate
+                SokoLayout layout = currentState.getLayout().moveCrate(crate, pushTo, map);
+
+                // Crate would never move again, or the crates can't all get a goal anymore
+                if(layout.isFreezeDeadlocked(pushTo, map) || 
+                    layout.isPatternDeadlocked(pushTo, map) || 
+                    layout.getMatchingCost(map) == Matching.INFEASIBLE)
+                    continue;
+
+                SokoState nextState = SokoStateFactory.createPushState(
+                    currentState, 
+                    layout, 
+                    crate, 
+                    direction, 
+                    (pushTo - crate) / direction, 
+                    distances[pushFrom], 
+                    map);
+
+                // At the door of the goal room, the crate goes straight to its goal if it can
+                SokoState roomState = SokoStateFactory.createRoomState(nextState, crate, pushTo, map);
+                nextStates.add(roomState != null ? roomState : nextState);
+            }
+        }
+
+        return nextStates;
+    }
+
+    /**
+     * Creates all the states reachable from the current state with a single crate pull.
+     * This is a push played backwards: the player stands next to a crate, steps away from it,
+     * and drags the crate along. Used when searching back from the goals.
+     * The move stored in each state is the direction of the pull.
+     * 
+     * @param   currentState    The current state to pull from.
+     * @param   map             The map to contextualize the pulls.
+     * @return                  The states after one pull.
+     */
+    public static List<SokoState> createNextPullStates(SokoState currentState, SokoMap map) {
+
+        // Where the player can walk to
+        int[] distances = currentState.getPlayerDistances(map);
+        int[] crates = currentState.getCrateLocations();
+        List<SokoState> nextStates = new ArrayList<>();
+
+        // Try pulling every crate in every direction
+        for(int i = 0; i < crates.length; i++) {
+            for(int direction : map.getDirections()) {
+                int crate = crates[i];
+                int pullFrom = crate + direction;
+
+                // Player can't get next to the crate
+                if(pullFrom < 0 || pullFrom >= distances.length || distances[pullFrom] < 0)
+                    continue;
+
+                // Player has nowhere to step back to
+                if(currentState.getObstacle(pullFrom, direction, map) != ' ')
+                    continue;
+
+                // Player steps back, crate takes its place
+                long hash = currentState.getHash()
+                    ^ map.getPlayerKey(currentState.getPlayer()) ^ map.getPlayerKey(pullFrom + direction)
+                    ^ map.getCrateKey(crate) ^ map.getCrateKey(pullFrom);
+
+                nextStates.add(new SokoState(
+                    pullFrom + direction,                               // Player ends a step past where it stood
+                    currentState.getLayout().moveCrate(crate, pullFrom, map),
+                    true,                                               // A crate was moved
+                    false,                                              // Turns don't matter here
+                    hash,                                               // The hash of the new state
+                    currentState,                                       // Parent, so the pulls can be replayed
+                    map.getMove(direction),                             // The pull itself
+                    currentState.getMoveCount() + distances[pullFrom] + 1));
+            }
+        }
+
+        return nextStates;
+    }
+
     /**
      * Creates the next state given the current state and direction specified by the player move.
      * 
@@ -96,10 +396,8 @@ public class SokoStateFactory {
         int player = currentState.getPlayer();
         int newPlayer = player + moveDirection;
 
-        // Other state properties
-        int[] crates = currentState.getCrateLocations();
-        String history = currentState.getHistory();
-        int historyLength = currentState.getMoveCount();
+        // Only two keys change when the player moves
+        long hash = currentState.getHash() ^ map.getPlayerKey(player) ^ map.getPlayerKey(newPlayer);
 
         // If no wall, check if it has a crate
         switch(currentState.getObstacle(player, moveDirection, map)) {
@@ -110,38 +408,38 @@ public class SokoStateFactory {
             // Player and a crate moves
             case 'c': 
                 
-                // Grab the crate
-                SokoCrate crate = currentState.getCrate(player, moveDirection);
-
                 // If crate can't move
-                if(!crate.canMove(moveDirection))
+                if(currentState.getObstacle(newPlayer, moveDirection, map) != ' ')
                     return null;
 
                 // Otherwise, move crate
-                for(int i = 0; i < crates.length; i++)
-                    if(crates[i] == newPlayer)
-                        crates[i] += moveDirection;
+                SokoLayout layout = currentState.getLayout().moveCrate(newPlayer, newPlayer + moveDirection, map);
+
+                // Crate would never move again, or the crates can't all get a goal anymore
+                if(layout.isFreezeDeadlocked(newPlayer + moveDirection, map) || 
+                    layout.isPatternDeadlocked(newPlayer + moveDirection, map) || 
+                    layout.getMatchingCost(map) == Matching.INFEASIBLE)
+                    return null;
+
+                // And two more when a crate moves with it
+                hash ^= map.getCrateKey(newPlayer) ^ map.getCrateKey(newPlayer + moveDirection);
 
                 // Create new state
                 return SokoStateFactory.createMoveStateWCrate(
+                    currentState, 
                     newPlayer, 
-                    crates, 
-                    map, 
-                    history, 
-                    historyLength,
-                    DIRECTION_TO_MOVE_MAP.get(moveDirection),
-                    currentState.getLastMove());
-
-            // Only the player moves
+                    layout, 
+                    hash, 
+                    map.getMove(moveDirection));
+
+            // Only the player moves; the crates are shared with the current state
             default: 
                 return SokoStateFactory.createMoveState(
+                    currentState, 
                     newPlayer, 
-                    crates, 
-                    map, 
-                    history, 
-                    historyLength, 
-                    DIRECTION_TO_MOVE_MAP.get(moveDirection),
-                    currentState.getLastMove());
+                    currentState.getLayout(), 
+                    hash, 
+                    map.getMove(moveDirection));
         }
     }
 }
@@ -0,0 +1,174 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 10:12:40
+ * @ Modified time: 2026-10-17 10:12:40
+ * @ Description:
+ *
+ * A set of longs that doesn't box them.
+ * Uses open addressing with linear probing, so each entry costs a slot in a single long array.
+ */
+
+package solver.utils;
+
+import java.util.function.LongConsumer;
+
+public class LongHashSet implements LongSet {
+
+    // Resize once the table is this full
+    private static final float LOAD_FACTOR = 0.75f;
+
+    // Largest array we can allocate
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    // The table itself; 0 marks an empty slot
+    // Since 0 is a valid key too, its presence is kept separately
+    private long[] keys;
+    private boolean hasZero;
+
+    // How many keys are stored, and how many before we grow
+    private int size;
+    private int threshold;
+    private int mask;
+
+    /**
+     * Creates a set big enough to hold the expected number of keys without resizing.
+     *
+     * @param   expectedSize    How many keys we expect to store.
+     */
+    public LongHashSet(int expectedSize) {
+
+        // Round up to a power of two so we can mask instead of mod
+        int capacity = 16;
+        while(capacity < MAX_CAPACITY && capacity * LOAD_FACTOR < expectedSize)
+            capacity <<= 1;
+
+        this.allocate(capacity);
+    }
+
+    /**
+     * Creates an empty table with the given capacity.
+     *
+     * @param   capacity    The number of slots, a power of two.
+     */
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.mask = capacity - 1;
+        this.threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Spreads the bits of a key so that nearby keys don't cluster.
+     *
+     * @param   key     The key to mix.
+     * @return          The index of the first slot to probe.
+     */
+    private int slot(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & this.mask;
+    }
+
+    /**
+     * Checks whether or not the key is in the set.
+     *
+     * @param   key     The key to look for.
+     * @return          Whether or not it's there.
+     */
+    @Override
+    public boolean contains(long key) {
+        if(key == 0)
+            return this.hasZero;
+
+        // Probe until we find it or an empty slot
+        for(int i = this.slot(key); ; i = (i + 1) & this.mask) {
+            long current = this.keys[i];
+
+            if(current == key)
+                return true;
+            if(current == 0)
+                return false;
+        }
+    }
+
+    /**
+     * Adds the key to the set.
+     *
+     * @param   key     The key to add.
+     * @return          Whether or not the key was new.
+     */
+    @Override
+    public boolean add(long key) {
+        if(key == 0) {
+            if(this.hasZero)
+                return false;
+
+            this.hasZero = true;
+            this.size++;
+            return true;
+        }
+
+        // Probe until we find it or an empty slot
+        int i = this.slot(key);
+        for(long current = this.keys[i]; current != 0; current = this.keys[i]) {
+            if(current == key)
+                return false;
+
+            i = (i + 1) & this.mask;
+        }
+
+        // Full, and can't grow anymore; past this, probes for missing keys would never end
+        if(this.size >= this.threshold && this.keys.length >= MAX_CAPACITY)
+            throw new IllegalStateException("The set is full at " + this.size + " keys");
+
+        // Take the empty slot
+        this.keys[i] = key;
+        if(++this.size > this.threshold)
+            this.grow();
+
+        return true;
+    }
+
+    /**
+     * Doubles the table and reinserts everything.
+     */
+    private void grow() {
+        long[] oldKeys = this.keys;
+        this.allocate(oldKeys.length << 1);
+
+        for(long key : oldKeys) {
+            if(key == 0)
+                continue;
+
+            int i = this.slot(key);
+            while(this.keys[i] != 0)
+                i = (i + 1) & this.mask;
+
+            this.keys[i] = key;
+        }
+    }
+
+    /**
+     * Runs through every key in the set, in no particular order.
+     *
+     * @param   action  What to do with each key.
+     */
+    public void forEach(LongConsumer action) {
+        if(this.hasZero)
+            action.accept(0);
+
+        for(long key : this.keys)
+            if(key != 0)
+                action.accept(key);
+    }
+
+    /**
+     * Returns how many keys are stored.
+     *
+     * @return  The number of keys in the set.
+     */
+    @Override
+    public long size() {
+        return this.size;
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 18:41:05
+ * @ Modified time: 2026-10-17 18:41:05
+ * @ Description:
+ *
+ * A set of longs, such as the hashes of visited states.
+ * Lets the solver swap the in-memory set for one that can spill to disk (see SpillingLongSet).
+ */
+
+package solver.utils;
+
+public interface LongSet {
+
+    /**
+     * Checks whether or not the key is in the set.
+     *
+     * @param   key     The key to look for.
+     * @return          Whether or not it's there.
+     */
+    public boolean contains(long key);
+
+    /**
+     * Adds the key to the set.
+     *
+     * @param   key     The key to add.
+     * @return          Whether or not the key was new.
+     */
+    public boolean add(long key);
+
+    /**
+     * Returns how many keys are stored.
+     *
+     * @return  The number of keys in the set.
+     */
+    public long size();
+
+    /**
+     * Lets go of anything the set holds outside the heap, like files.
+     * The set shouldn't be used afterwards.
+     */
+    public default void close() {
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 18:43:37
+ * @ Modified time: 2026-10-17 18:43:37
+ * @ Description:
+ *
+ * A set of longs kept in a memory-mapped file instead of the heap.
+ * Works like LongHashSet (open addressing, linear probing, 0 marks an empty slot), but the table
+ * lives in a temp file, so it can hold far more keys than the heap would; the OS pages it in and out.
+ * A single mapping can't pass 2 GB, so the table is split into segments, each mapped on its own.
+ */
+
+package solver.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class MappedLongHashSet implements LongSet {
+
+    // Resize once the table is this full
+    private static final float LOAD_FACTOR = 0.75f;
+
+    // Each segment holds 1 << 27 slots, or 1 GB
+    private static final int SEGMENT_SHIFT = 27;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    // Where the table files go, and the current one
+    private Path directory;
+    private Path file;
+
+    // The table itself; 0 marks an empty slot
+    // Since 0 is a valid key too, its presence is kept separately
+    private LongBuffer[] segments;
+    private boolean hasZero;
+
+    // How many keys are stored, and how many before we grow
+    private long size;
+    private long threshold;
+    private long mask;
+
+    /**
+     * Creates a set big enough to hold the expected number of keys without resizing.
+     *
+     * @param   expectedSize    How many keys we expect to store.
+     * @param   directory       Where to put the file behind the table.
+     */
+    public MappedLongHashSet(long expectedSize, Path directory) {
+        this.directory = directory;
+
+        // Round up to a power of two so we can mask instead of mod
+        long capacity = 16;
+        while(capacity * LOAD_FACTOR < expectedSize)
+            capacity <<= 1;
+
+        this.allocate(capacity);
+    }
+
+    /**
+     * Creates an empty table with the given capacity, in a new file.
+     * The file starts out sparse, and reads as all zeroes.
+     *
+     * @param   capacity    The number of slots, a power of two.
+     */
+    private void allocate(long capacity) {
+        int segmentSize = (int) Math.min(capacity, 1L << SEGMENT_SHIFT);
+        int segmentCount = (int) (capacity / segmentSize);
+
+        try {
+            this.file = Files.createTempFile(this.directory, "soko-visited-", ".bin");
+            this.file.toFile().deleteOnExit();
+
+            // The mappings stay valid after the channel is closed
+            try(FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                this.segments = new LongBuffer[segmentCount];
+                for(int i = 0; i < segmentCount; i++)
+                    this.segments[i] = channel
+                        .map(FileChannel.MapMode.READ_WRITE, (long) i * segmentSize * Long.BYTES, (long) segmentSize * Long.BYTES)
+                        .asLongBuffer();
+            }
+        } catch(IOException e) {
+            throw new UncheckedIOException("Could not map the visited states to " + this.directory, e);
+        }
+
+        this.mask = capacity - 1;
+        this.threshold = (long) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Spreads the bits of a key so that nearby keys don't cluster.
+     *
+     * @param   key     The key to mix.
+     * @return          The index of the first slot to probe.
+     */
+    private long slot(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key & this.mask;
+    }
+
+    /**
+     * Reads a slot.
+     *
+     * @param   index   The slot to read.
+     * @return          The key in it, or 0 if it's empty.
+     */
+    private long get(long index) {
+        return this.segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+    }
+
+    /**
+     * Writes a slot.
+     *
+     * @param   index   The slot to write.
+     * @param   key     The key to put in it.
+     */
+    private void set(long index, long key) {
+        this.segments[(int) (index >>> SEGMENT_SHIFT)].put((int) (index & SEGMENT_MASK), key);
+    }
+
+    /**
+     * Checks whether or not the key is in the set.
+     *
+     * @param   key     The key to look for.
+     * @return          Whether or not it's there.
+     */
+    @Override
+    public boolean contains(long key) {
+        if(key == 0)
+            return this.hasZero;
+
+        // Probe until we find it or an empty slot
+        for(long i = this.slot(key); ; i = (i + 1) & this.mask) {
+            long current = this.get(i);
+
+            if(current == key)
+                return true;
+            if(current == 0)
+                return false;
+        }
+    }
+
+    /**
+     * Adds the key to the set.
+     *
+     * @param   key     The key to add.
+     * @return          Whether or not the key was new.
+     */
+    @Override
+    public boolean add(long key) {
+        if(key == 0) {
+            if(this.hasZero)
+                return false;
+
+            this.hasZero = true;
+            this.size++;
+            return true;
+        }
+
+        // Probe until we find it or an empty slot
+        long i = this.slot(key);
+        for(long current = this.get(i); current != 0; current = this.get(i)) {
+            if(current == key)
+                return false;
+
+            i = (i + 1) & this.mask;
+        }
+
+        // Take the empty slot
+        this.set(i, key);
+        if(++this.size > this.threshold)
+            this.grow();
+
+        return true;
+    }
+
+    /**
+     * Doubles the table into a new file and reinserts everything.
+     */
+    private void grow() {
+        LongBuffer[] oldSegments = this.segments;
+        Path oldFile = this.file;
+
+        this.allocate((this.mask + 1) << 1);
+
+        for(LongBuffer segment : oldSegments) {
+            for(int j = 0; j < segment.capacity(); j++) {
+                long key = segment.get(j);
+                if(key == 0)
+                    continue;
+
+                long i = this.slot(key);
+                while(this.get(i) != 0)
+                    i = (i + 1) & this.mask;
+
+                this.set(i, key);
+            }
+        }
+
+        this.delete(oldFile);
+    }
+
+    /**
+     * Deletes a table file.
+     * Some systems won't delete a file that's still mapped; those are left for deleteOnExit.
+     *
+     * @param   file    The file to delete.
+     */
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch(IOException e) {
+        }
+    }
+
+    /**
+     * Returns how many keys are stored.
+     *
+     * @return  The number of keys in the set.
+     */
+    @Override
+    public long size() {
+        return this.size;
+    }
+
+    /**
+     * Drops the table and deletes its file.
+     */
+    @Override
+    public void close() {
+        this.segments = null;
+        this.delete(this.file);
+    }
+}
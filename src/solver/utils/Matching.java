@@ -0,0 +1,169 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 13:05:41
+ * @ Modified time: 2026-10-17 13:05:41
+ * @ Description:
+ *
+ * Helper functions for pairing crates with goals.
+ * Given what it costs to bring each crate to each goal, these find how cheaply
+ * every crate can get its own goal. These are all static.
+ */
+
+package solver.utils;
+
+import java.util.Arrays;
+
+public class Matching {
+
+    // Costs at or above this mean the crate can't get to that goal at all
+    public static final int UNREACHABLE = 1 << 20;
+
+    // Returned when there's no way to give every crate its own goal
+    public static final int INFEASIBLE = Integer.MAX_VALUE;
+
+    /**
+     * Finds the cheapest way to give every row its own column (the Hungarian method).
+     * Runs in O(rows * rows * columns).
+     *
+     * @param   costs   The cost of each row (crate) and column (goal) pair.
+     * @return          The total cost of the best pairing, or INFEASIBLE.
+     */
+    public static int minimum(int[][] costs) {
+        int rows = costs.length;
+        int columns = rows == 0 ? 0 : costs[0].length;
+
+        // Not enough columns to go around
+        if(rows > columns)
+            return INFEASIBLE;
+
+        // Potentials of the rows and columns; index 0 of the columns is a placeholder
+        // columnRows[j] is the row given column j, or 0 if none (rows are counted from 1 here)
+        int[] rowPotentials = new int[rows + 1];
+        int[] columnPotentials = new int[columns + 1];
+        int[] columnRows = new int[columns + 1];
+        int[] previous = new int[columns + 1];
+        int[] slack = new int[columns + 1];
+        boolean[] used = new boolean[columns + 1];
+
+        // Add the rows one at a time
+        for(int row = 1; row <= rows; row++) {
+            columnRows[0] = row;
+            int column = 0;
+            Arrays.fill(slack, Integer.MAX_VALUE);
+            Arrays.fill(used, false);
+
+            // Grow the alternating tree until a free column is found
+            do {
+                used[column] = true;
+                int current = columnRows[column];
+                int delta = Integer.MAX_VALUE;
+                int next = 0;
+
+                for(int j = 1; j <= columns; j++) {
+                    if(used[j])
+                        continue;
+
+                    int reduced = costs[current - 1][j - 1] - rowPotentials[current] - columnPotentials[j];
+                    if(reduced < slack[j]) {
+                        slack[j] = reduced;
+                        previous[j] = column;
+                    }
+
+                    if(slack[j] < delta) {
+                        delta = slack[j];
+                        next = j;
+                    }
+                }
+
+                // Update the potentials
+                for(int j = 0; j <= columns; j++) {
+                    if(used[j]) {
+                        rowPotentials[columnRows[j]] += delta;
+                        columnPotentials[j] -= delta;
+                    } else {
+                        slack[j] -= delta;
+                    }
+                }
+
+                column = next;
+            } while(columnRows[column] != 0);
+
+            // Flip the path back to the start
+            do {
+                int before = previous[column];
+                columnRows[column] = columnRows[before];
+                column = before;
+            } while(column != 0);
+        }
+
+        // Add up the chosen pairs
+        int total = 0;
+        for(int j = 1; j <= columns; j++) {
+            if(columnRows[j] == 0)
+                continue;
+
+            int cost = costs[columnRows[j] - 1][j - 1];
+            if(cost >= UNREACHABLE)
+                return INFEASIBLE;
+
+            total += cost;
+        }
+
+        return total;
+    }
+
+    /**
+     * Pairs rows with columns by always taking the cheapest pair left.
+     * Much cheaper than the above, but the total can be higher than the best one.
+     * Rows left without a column are counted with their cheapest column.
+     *
+     * @param   costs   The cost of each row (crate) and column (goal) pair.
+     * @return          The total cost of the pairing, or INFEASIBLE if some row can't reach any column.
+     */
+    public static int greedy(int[][] costs) {
+        int rows = costs.length;
+        int columns = rows == 0 ? 0 : costs[0].length;
+
+        // Pack each pair as its cost followed by its row and column, so sorting sorts by cost
+        long[] pairs = new long[rows * columns];
+        int count = 0;
+        for(int i = 0; i < rows; i++)
+            for(int j = 0; j < columns; j++)
+                if(costs[i][j] < UNREACHABLE)
+                    pairs[count++] = ((long) costs[i][j] << 32) | (i << 16) | j;
+        Arrays.sort(pairs, 0, count);
+
+        // Take pairs whose row and column are both free
+        boolean[] rowTaken = new boolean[rows];
+        boolean[] columnTaken = new boolean[columns];
+        int total = 0;
+        for(int k = 0; k < count; k++) {
+            int i = (int) (pairs[k] >>> 16) & 0xFFFF;
+            int j = (int) pairs[k] & 0xFFFF;
+
+            if(rowTaken[i] || columnTaken[j])
+                continue;
+
+            rowTaken[i] = true;
+            columnTaken[j] = true;
+            total += (int) (pairs[k] >>> 32);
+        }
+
+        // Leftover rows go to their cheapest column, taken or not
+        for(int i = 0; i < rows; i++) {
+            if(rowTaken[i])
+                continue;
+
+            int cheapest = UNREACHABLE;
+            for(int j = 0; j < columns; j++)
+                cheapest = Math.min(cheapest, costs[i][j]);
+
+            if(cheapest >= UNREACHABLE)
+                return INFEASIBLE;
+
+            total += cheapest;
+        }
+
+        return total;
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 18:52:14
+ * @ Modified time: 2026-10-17 18:52:14
+ * @ Description:
+ *
+ * A set of longs that starts out on the heap and moves to disk when the heap gets full.
+ * Once more than the threshold of heap is in use, every key is copied to a MappedLongHashSet
+ * in the temp directory, and the set carries on from there. It never moves back.
+ * The heap is only checked every so often, since asking the runtime isn't free.
+ */
+
+package solver.utils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class SpillingLongSet implements LongSet {
+
+    // How many adds go by between checks of the heap
+    private static final int HEAP_CHECK_INTERVAL = 4096;
+
+    // How much heap may be in use before spilling, in bytes
+    private long heapThreshold;
+
+    // Where the keys are; only one is ever in use
+    private LongHashSet memorySet;
+    private MappedLongHashSet diskSet;
+
+    /**
+     * Creates a set that starts on the heap.
+     *
+     * @param   expectedSize    How many keys we expect to store before spilling.
+     * @param   heapThreshold   How many bytes of heap may be in use before spilling.
+     */
+    public SpillingLongSet(int expectedSize, long heapThreshold) {
+        this.heapThreshold = heapThreshold;
+        this.memorySet = new LongHashSet(expectedSize);
+    }
+
+    /**
+     * Checks whether or not the key is in the set.
+     *
+     * @param   key     The key to look for.
+     * @return          Whether or not it's there.
+     */
+    @Override
+    public boolean contains(long key) {
+        return this.diskSet != null
+            ? this.diskSet.contains(key)
+            : this.memorySet.contains(key);
+    }
+
+    /**
+     * Adds the key to the set, spilling to disk if the heap has gotten too full.
+     *
+     * @param   key     The key to add.
+     * @return          Whether or not the key was new.
+     */
+    @Override
+    public boolean add(long key) {
+        if(this.diskSet != null)
+            return this.diskSet.add(key);
+
+        if(!this.memorySet.add(key))
+            return false;
+
+        // Time to check on the heap
+        if(this.memorySet.size() % HEAP_CHECK_INTERVAL == 0 && this.isHeapFull())
+            this.spill();
+
+        return true;
+    }
+
+    /**
+     * Whether or not more of the heap is in use than allowed.
+     *
+     * @return  Yes or no.
+     */
+    private boolean isHeapFull() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory() > this.heapThreshold;
+    }
+
+    /**
+     * Moves every key to disk, leaving room to double before the table has to grow.
+     */
+    private void spill() {
+        Path directory = Paths.get(System.getProperty("java.io.tmpdir"));
+        MappedLongHashSet diskSet = new MappedLongHashSet(this.memorySet.size() * 2, directory);
+
+        this.memorySet.forEach(diskSet::add);
+        this.diskSet = diskSet;
+        this.memorySet = null;
+    }
+
+    /**
+     * Whether or not the keys have moved to disk.
+     *
+     * @return  Yes or no.
+     */
+    public boolean isSpilled() {
+        return this.diskSet != null;
+    }
+
+    /**
+     * Returns how many keys are stored.
+     *
+     * @return  The number of keys in the set.
+     */
+    @Override
+    public long size() {
+        return this.diskSet != null
+            ? this.diskSet.size()
+            : this.memorySet.size();
+    }
+
+    /**
+     * Deletes the file behind the set, if it spilled.
+     */
+    @Override
+    public void close() {
+        if(this.diskSet != null)
+            this.diskSet.close();
+    }
+}
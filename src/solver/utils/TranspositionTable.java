@@ -0,0 +1,100 @@
+/**
+ * @ Author: Group 23
+ * @ Create Time: 2026-10-17 14:02:18
+ * @ Modified time: 2026-10-17 14:02:18
+ * @ Description:
+ *
+ * A fixed-size table remembering how deep each state was reached, for depth-first searches.
+ * It never grows: when two states want the same slot, the one closer to the root stays.
+ * Entries from earlier rounds (see nextRound) are overwritten freely.
+ */
+
+package solver.utils;
+
+public class TranspositionTable {
+
+    // Largest array we can allocate
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    // The keys, and what we know about each: the round it was seen in and its depth
+    // The round takes the upper half of the entry and the depth the lower half
+    private long[] keys;
+    private long[] entries;
+    private int mask;
+
+    // Entries from other rounds are stale
+    private int round;
+
+    /**
+     * Creates a table with room for about the given number of states.
+     *
+     * @param   capacity    How many states to remember at most; rounded down to a power of two.
+     */
+    public TranspositionTable(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, Math.min(capacity, MAX_CAPACITY)));
+
+        this.keys = new long[size];
+        this.entries = new long[size];
+        this.mask = size - 1;
+
+        // Round 0 marks empty slots
+        this.round = 1;
+    }
+
+    /**
+     * Spreads the bits of a key so that nearby keys don't cluster.
+     *
+     * @param   key     The key to mix.
+     * @return          The slot of the key.
+     */
+    private int slot(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & this.mask;
+    }
+
+    /**
+     * Records that a state was reached at some depth.
+     * If it was already reached this round at the same depth or closer to the root, there's no
+     * point in searching it again, and false is returned.
+     *
+     * @param   key     The hash of the state.
+     * @param   depth   How deep the state is.
+     * @return          Whether or not the state should be searched.
+     */
+    public boolean visit(long key, int depth) {
+        int i = this.slot(key);
+        long entry = this.entries[i];
+        int entryRound = (int) (entry >>> 32);
+        int entryDepth = (int) entry;
+
+        // Same state, already reached from closer
+        if(entryRound == this.round && this.keys[i] == key && entryDepth <= depth)
+            return false;
+
+        // Keep a current entry that's closer to the root than us, since it prunes more
+        if(entryRound == this.round && this.keys[i] != key && entryDepth < depth)
+            return true;
+
+        this.keys[i] = key;
+        this.entries[i] = ((long) this.round << 32) | depth;
+        return true;
+    }
+
+    /**
+     * Starts a new round; everything recorded so far becomes stale.
+     */
+    public void nextRound() {
+        this.round++;
+    }
+
+    /**
+     * Returns how many states the table can hold.
+     *
+     * @return  The number of slots.
+     */
+    public int capacity() {
+        return this.keys.length;
+    }
+}
@@ -30,8 +30,8 @@ public class Tester {
         test.run();
         test.end();
 
-        // Force exit to kill all threads
-        // Our threads don't wanna die through .interrupt() smh
+        // The solver stops once interrupted, but the Swing threads keep the JVM alive
+        // Force exit to kill them
         System.exit(0);
     }
 }
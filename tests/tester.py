@@ -22,6 +22,9 @@ TIMESTAMP_FORMAT = '%H:%M:%S %d/%m/%Y'
 MAP_FOLDER = 'maps'
 MAP_NAMES = []
 
+# The compiled classes, plus data/ for the deadlock pattern table (see run.sh and run.bat)
+CLASSPATH = os.pathsep.join(['out', 'data'])
+
 def get_timestamp(format: str =TIMESTAMP_FORMAT) -> str:
     """Returns the timestamp at a given point in time.
     Automatically formats the timestamp according to the template provided.
@@ -80,7 +83,7 @@ def process_to_csv(test_name: str, map_name: str) -> None:
         
         # Do the test
         start = get_timestamp()
-        out_text = os.popen("java -classpath out tests.Tester {} {}".format(test_name, map_name)).read()
+        out_text = os.popen("java -classpath {} tests.Tester {} {}".format(CLASSPATH, test_name, map_name)).read()
         end = get_timestamp()
         
         # Process information per row
@@ -118,7 +121,7 @@ def do_test(test_name, map_name, out):
         
         # Do the test
         start = get_timestamp()
-        out_text = os.popen("java -classpath out tests.Tester {} {}".format(test_name, map_name)).read()
+        out_text = os.popen("java -classpath {} tests.Tester {} {}".format(CLASSPATH, test_name, map_name)).read()
         end = get_timestamp()
         
         # Append results
@@ -23,7 +23,6 @@ import java.io.File;
 
 import solver.SokoStateObjects.SokoMap;
 import solver.SokoStateObjects.SokoState;
-import solver.utils.Location;
 
 public class StateVisual extends JPanel {
 
@@ -143,8 +142,8 @@ public class StateVisual extends JPanel {
             // Draw the goal
             g.drawImage(
                 GOAL, 
-                this.getX(Location.decodeX(goal)),
-                this.getY(Location.decodeY(goal)),
+                this.getX(this.map.getX(goal)),
+                this.getY(this.map.getY(goal)),
                 TILE_SIZE, TILE_SIZE, this);
         }
 
@@ -163,16 +162,16 @@ public class StateVisual extends JPanel {
             // Draw the crate
             g.drawImage(
                 crateImage, 
-                this.getX(Location.decodeX(crate)),
-                this.getY(Location.decodeY(crate)),
+                this.getX(this.map.getX(crate)),
+                this.getY(this.map.getY(crate)),
                 TILE_SIZE, TILE_SIZE, this);
         }
 
         // Draw the player
         g.drawImage(
             PLAYER, 
-            this.getX(Location.decodeX(player)),
-            this.getY(Location.decodeY(player)),
+            this.getX(this.map.getX(player)),
+            this.getY(this.map.getY(player)),
             TILE_SIZE, TILE_SIZE, this);
 
         g.setColor(new Color(150, 160, 180));